@@ -0,0 +1,78 @@
+package com.smartsolutions.hub.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartsolutions.hub.dto.DashboardConfigDTO;
+import com.smartsolutions.hub.dto.ToolDTO;
+import com.smartsolutions.hub.dto.UserPreferencesDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache configuration
+ * Per-user read models are cached in two tiers (Caffeine + Redis), see TwoTierCache.
+ * Hit ratio and size per cache are published as cache.* metrics.
+ */
+@Configuration
+public class CacheConfig {
+    
+    public static final String TOOLS = "tools";
+    public static final String DASHBOARDS = "dashboards";
+    public static final String PREFERENCES = "preferences";
+    public static final String UNREAD_COUNTS = "unread-counts";
+    
+    @Bean
+    public TwoTierCacheManager cacheManager(
+            TwoTierCacheProperties properties,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        
+        // Type of the cached values, needed to read them back from JSON
+        TypeFactory types = objectMapper.getTypeFactory();
+        Map<String, JavaType> valueTypes = Map.of(
+            TOOLS, types.constructCollectionType(List.class, ToolDTO.class),
+            DASHBOARDS, types.constructType(DashboardConfigDTO.class),
+            PREFERENCES, types.constructType(UserPreferencesDTO.class),
+            UNREAD_COUNTS, types.constructType(Long.class)
+        );
+        
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisTemplate);
+        valueTypes.forEach((name, valueType) -> {
+            TwoTierCacheProperties.Spec spec = properties.spec(name);
+            Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+            
+            cacheManager.register(new TwoTierCache(
+                name,
+                local,
+                redisTemplate,
+                objectMapper,
+                valueType,
+                spec.getTtl(),
+                properties.getRedisRetryDelay(),
+                cacheManager,
+                meterRegistry
+            ));
+        });
+        
+        listenerContainer.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.CHANNEL));
+        return cacheManager;
+    }
+}
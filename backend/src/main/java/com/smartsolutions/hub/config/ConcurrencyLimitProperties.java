@@ -0,0 +1,75 @@
+package com.smartsolutions.hub.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limit properties
+ * Values loaded from application.yml (hub.concurrency-limit.* properties)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "hub.concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+    
+    /**
+     * Enable load shedding in front of the controllers
+     */
+    private boolean enabled = true;
+    
+    /**
+     * /auth/** requests
+     */
+    private Group auth = new Group(20, 5, 100, Duration.ofSeconds(2));
+    
+    /**
+     * GET and HEAD requests
+     */
+    private Group reads = new Group(100, 10, 400, Duration.ofSeconds(1));
+    
+    /**
+     * Other methods (POST, PUT, PATCH, DELETE)
+     */
+    private Group writes = new Group(50, 5, 200, Duration.ofSeconds(2));
+    
+    @Getter
+    @Setter
+    public static class Group {
+        
+        /**
+         * Concurrent requests allowed at startup
+         */
+        private int initialLimit;
+        
+        /**
+         * Bounds the limit moves between
+         */
+        private int minLimit;
+        private int maxLimit;
+        
+        /**
+         * A request slower than this (or failing with 5xx) counts as congestion
+         */
+        private Duration latencyThreshold;
+        
+        /**
+         * Multiplicative decrease applied to the limit on congestion
+         */
+        private double backoffRatio = 0.9;
+        
+        public Group() {
+        }
+        
+        public Group(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+}
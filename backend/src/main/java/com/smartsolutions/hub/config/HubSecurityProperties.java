@@ -0,0 +1,206 @@
+package com.smartsolutions.hub.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Security tuning properties
+ * Values loaded from application.yml (hub.security.* properties)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "hub.security")
+@Getter
+@Setter
+public class HubSecurityProperties {
+    
+    /**
+     * Password hashing executor settings
+     */
+    private PasswordHashing passwordHashing = new PasswordHashing();
+    
+    /**
+     * Failed login tracking settings
+     */
+    private LoginAttempts loginAttempts = new LoginAttempts();
+    
+    /**
+     * Azure AD token verification settings
+     */
+    private Azure azure = new Azure();
+    
+    /**
+     * Request rate limits per route
+     */
+    private RateLimit rateLimit = new RateLimit();
+    
+    @Getter
+    @Setter
+    public static class PasswordHashing {
+        
+        /**
+         * Number of threads dedicated to password hashing
+         * Default: number of available processors
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+        
+        /**
+         * Maximum number of hashing jobs waiting for a thread
+         * Requests beyond this limit are rejected with 503
+         */
+        private int queueCapacity = 64;
+        
+        /**
+         * Maximum time a request waits for its hash before giving up
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+        
+        /**
+         * Calibrate the BCrypt cost at startup from targetLatency, so each node controls its
+         * own login CPU cost. Nodes may pick different costs: a hash is only rehashed when its
+         * cost is below the node's target, so hashes never flip between nodes.
+         */
+        private boolean calibrate = true;
+        
+        /**
+         * Hashing time budget per password on this hardware
+         */
+        private Duration targetLatency = Duration.ofMillis(100);
+        
+        /**
+         * Lowest and highest BCrypt cost calibration may choose
+         */
+        private int minCost = 10;
+        private int maxCost = 14;
+        
+        /**
+         * Fixed BCrypt cost, used only when calibration is turned off (opt-out)
+         */
+        private int cost = 10;
+    }
+    
+    @Getter
+    @Setter
+    public static class LoginAttempts {
+        
+        /**
+         * Window over which failed attempts are counted (shared in Redis, from the first failure)
+         */
+        private Duration window = Duration.ofMinutes(30);
+        
+        /**
+         * Maximum number of emails tracked in memory while Redis is unreachable
+         */
+        private long maxTrackedEmails = 100000;
+        
+        /**
+         * How long to count on this node only after a Redis error
+         */
+        private Duration redisRetryDelay = Duration.ofSeconds(30);
+    }
+    
+    @Getter
+    @Setter
+    public static class Azure {
+        
+        /**
+         * Accept access tokens issued by Azure AD (verified against its JWKS keyset)
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Expected iss claim, e.g. https://login.microsoftonline.com/{tenant}/v2.0
+         */
+        private String issuer;
+        
+        /**
+         * Expected aud claim (application client id)
+         */
+        private String audience;
+        
+        /**
+         * JWKS location: https:, file: or classpath: (a local keyset can stand in for Azure in tests)
+         */
+        private String jwksLocation;
+        
+        /**
+         * Claim holding the user's email
+         */
+        private String emailClaim = "preferred_username";
+        
+        /**
+         * Minimum delay between two keyset reloads triggered by an unknown kid
+         */
+        private Duration minRefreshInterval = Duration.ofMinutes(1);
+    }
+    
+    @Getter
+    @Setter
+    public static class RateLimit {
+        
+        /**
+         * Enable the rate limiting filter
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Number of lock stripes guarding the local buckets
+         */
+        private int stripes = 64;
+        
+        /**
+         * Maximum number of keys (IP or email per route) tracked in memory
+         */
+        private long maxTrackedKeys = 100000;
+        
+        /**
+         * After a Redis failure, apply the local buckets alone for this long before trying Redis again
+         */
+        private Duration redisRetryDelay = Duration.ofSeconds(30);
+        
+        /**
+         * Largest body read to find the email of a per-email limited route; larger bodies get 413
+         */
+        private int maxBodyBytes = 16 * 1024;
+        
+        /**
+         * Limited routes; every matching route applies
+         */
+        private List<Route> routes = new ArrayList<>();
+    }
+    
+    @Getter
+    @Setter
+    public static class Route {
+        
+        /**
+         * Ant path pattern, relative to the context path (e.g. /auth/login)
+         */
+        private String path;
+        
+        /**
+         * HTTP methods the limit applies to (all methods when empty)
+         */
+        private List<String> methods = new ArrayList<>();
+        
+        /**
+         * Maximum requests per client IP within the window (0 = unlimited)
+         */
+        private int perIp;
+        
+        /**
+         * Maximum requests per email (read from the JSON body) within the window (0 = unlimited)
+         */
+        private int perEmail;
+        
+        /**
+         * Sliding window length
+         */
+        private Duration window = Duration.ofMinutes(1);
+    }
+}
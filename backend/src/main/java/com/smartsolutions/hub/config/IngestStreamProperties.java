@@ -0,0 +1,69 @@
+package com.smartsolutions.hub.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Notification ingestion stream properties
+ * Values loaded from application.yml (hub.notifications.ingest-stream.* properties)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "hub.notifications.ingest-stream")
+@Getter
+@Setter
+public class IngestStreamProperties {
+    
+    /**
+     * Run the consumer on this node
+     */
+    private boolean enabled = true;
+    
+    /**
+     * Redis stream written by external systems (one "payload" field: a CreateNotificationRequest as JSON)
+     */
+    private String key = "hub:notifications:ingest";
+    
+    /**
+     * Entries that cannot be ingested, with a "reason" field
+     */
+    private String deadLetterKey = "hub:notifications:ingest:dead";
+    
+    /**
+     * Consumer group shared by every backend node
+     */
+    private String group = "hub-backend";
+    
+    /**
+     * Consumers (threads) on this node
+     */
+    private int consumers = 1;
+    
+    /**
+     * Entries per read, written in one transaction (at most NotificationIngestionService.MAX_BATCH_SIZE)
+     */
+    private int batchSize = 500;
+    
+    /**
+     * How long a read waits for new entries
+     */
+    private Duration block = Duration.ofSeconds(2);
+    
+    /**
+     * Pending entries idle for longer than this belong to a dead or stuck consumer and are claimed
+     */
+    private Duration claimMinIdle = Duration.ofMinutes(1);
+    
+    /**
+     * Deliveries after which an entry goes to the dead-letter stream
+     */
+    private int maxDeliveries = 5;
+    
+    /**
+     * How long the ids of ingested entries are kept to skip redeliveries (longer than any redelivery)
+     */
+    private Duration receiptRetention = Duration.ofDays(1);
+}
@@ -48,4 +48,24 @@ public class JwtConfig {
      * Token prefix
      */
     private String prefix = "Bearer ";
+    
+    /**
+     * Verified access token cache settings
+     */
+    private Cache cache = new Cache();
+    
+    @Getter
+    @Setter
+    public static class Cache {
+        
+        /**
+         * Skip signature verification and claim parsing for tokens already verified
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Maximum number of verified tokens kept in memory
+         */
+        private long maxSize = 10000;
+    }
 }
@@ -0,0 +1,51 @@
+package com.smartsolutions.hub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Redis configuration
+ * Pub/sub container shared by the cross-node synchronisation channels (revocations, cache
+ * invalidations, notification fan-out). Messages are dispatched on a bounded pool instead of
+ * a new thread per message; when its queue is full the subscription thread runs the listener
+ * itself, which slows reading instead of dropping messages.
+ * The executors are not beans, so Spring Boot's application task executor is still created.
+ */
+@Configuration
+public class RedisConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            @Value("${hub.redis.listener.pool-size:4}") int poolSize,
+            @Value("${hub.redis.listener.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor listenerExecutor = new ThreadPoolTaskExecutor();
+        listenerExecutor.setCorePoolSize(poolSize);
+        listenerExecutor.setMaxPoolSize(poolSize);
+        listenerExecutor.setQueueCapacity(queueCapacity);
+        listenerExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        listenerExecutor.setThreadNamePrefix("redis-listener-");
+        listenerExecutor.setDaemon(true);
+        listenerExecutor.initialize();
+        
+        // The subscription blocks its thread while it listens: one at a time
+        ThreadPoolTaskExecutor subscriptionExecutor = new ThreadPoolTaskExecutor();
+        subscriptionExecutor.setCorePoolSize(1);
+        subscriptionExecutor.setMaxPoolSize(1);
+        subscriptionExecutor.setThreadNamePrefix("redis-subscription-");
+        subscriptionExecutor.setDaemon(true);
+        subscriptionExecutor.initialize();
+        
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(listenerExecutor);
+        container.setSubscriptionExecutor(subscriptionExecutor);
+        return container;
+    }
+}
@@ -1,31 +1,61 @@
 package com.smartsolutions.hub.config;
 
+import com.smartsolutions.hub.security.BCryptCostCalibrator;
 import com.smartsolutions.hub.security.JwtAuthenticationEntryPoint;
 import com.smartsolutions.hub.security.JwtAuthenticationFilter;
 import com.smartsolutions.hub.security.MockAuthenticationFilter;
+import com.smartsolutions.hub.security.PasswordHashPolicy;
+import com.smartsolutions.hub.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
     
     /**
-     * Password encoder bean (BCrypt with strength 10)
+     * Password hash policy (BCrypt cost calibrated on this node against target-latency, or the fixed cost)
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordHashPolicy passwordHashPolicy(HubSecurityProperties securityProperties) {
+        HubSecurityProperties.PasswordHashing config = securityProperties.getPasswordHashing();
+        int cost = config.isCalibrate()
+            ? BCryptCostCalibrator.calibrate(config.getTargetLatency(), config.getMinCost(), config.getMaxCost())
+            : config.getCost();
+        return PasswordHashPolicy.bcrypt(cost);
+    }
+    
+    /**
+     * Password encoder bean
+     * New hashes are written as {bcrypt}...; legacy hashes without prefix are still accepted
+     * and other algorithms can be added here without forcing a password reset
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashPolicy passwordHashPolicy) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordHashPolicy.bcryptCost());
+        
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(passwordHashPolicy.encodingId(), bcrypt);
+        
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(passwordHashPolicy.encodingId(), encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
     
     /**
@@ -36,12 +66,15 @@ public class SecurityConfig {
     public SecurityFilterChain devSecurityFilterChain(
             HttpSecurity http,
             JwtAuthenticationFilter jwtAuthFilter,
+            RateLimitFilter rateLimitFilter,
             JwtAuthenticationEntryPoint jwtAuthEntryPoint) throws Exception {
         
         http
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Completion of an async request (SSE stream) was authorized on the original dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints (context path is already /api, so don't include it here)
                 .requestMatchers(
                     "/auth/**",               // Authentication endpoints
@@ -50,31 +83,40 @@ public class SecurityConfig {
                     "/swagger-ui.html",
                     "/actuator/health"        // Health check
                 ).permitAll()
+                // Bulk notification ingestion and broadcasts are reserved to admins
+                .requestMatchers(HttpMethod.POST, "/notifications/batch", "/notifications/broadcast").hasRole("ADMIN")
+                // DELETE /actuator/caches clears every cache on every node
+                .requestMatchers("/actuator/caches", "/actuator/caches/**").hasRole("ADMIN")
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
             .exceptionHandling(exception -> 
                 exception.authenticationEntryPoint(jwtAuthEntryPoint)
             )
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
     
     /**
-     * Production security filter chain with OAuth2 JWT
+     * Production security filter chain
+     * JwtAuthenticationFilter verifies both our own tokens and Azure AD tokens (JWKS) in a single parse
      */
     @Bean
     @Profile("prod")
     public SecurityFilterChain prodSecurityFilterChain(
             HttpSecurity http,
             JwtAuthenticationFilter jwtAuthFilter,
+            RateLimitFilter rateLimitFilter,
             JwtAuthenticationEntryPoint jwtAuthEntryPoint) throws Exception {
         
         http
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Completion of an async request (SSE stream) was authorized on the original dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints (context path is already /api, so don't include it here)
                 .requestMatchers(
                     "/auth/**",
@@ -83,6 +125,10 @@ public class SecurityConfig {
                     "/swagger-ui.html",
                     "/actuator/health"
                 ).permitAll()
+                // Bulk notification ingestion and broadcasts are reserved to admins
+                .requestMatchers(HttpMethod.POST, "/notifications/batch", "/notifications/broadcast").hasRole("ADMIN")
+                // DELETE /actuator/caches clears every cache on every node
+                .requestMatchers("/actuator/caches", "/actuator/caches/**").hasRole("ADMIN")
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
@@ -90,8 +136,7 @@ public class SecurityConfig {
                 exception.authenticationEntryPoint(jwtAuthEntryPoint)
             )
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
-            // OAuth2 Resource Server for Azure AD (future)
-            .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> {}));
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
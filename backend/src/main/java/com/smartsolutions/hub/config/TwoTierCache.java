@@ -0,0 +1,271 @@
+package com.smartsolutions.hub.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Two-tier cache
+ * L1: per-node Caffeine cache. L2: Redis, shared by all nodes, values stored as JSON.
+ * Evictions are broadcast on a Redis channel so every node drops its L1 copy.
+ * When Redis fails, the cache keeps working on L1 only and retries Redis after a pause.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+    
+    static final String KEY_PREFIX = "hub:cache:";
+    private static final String NULL_VALUE = "null";
+    private static final int EVICT_CHUNK_SIZE = 500;
+    
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final JavaType valueType;
+    private final Duration ttl;
+    private final Duration redisRetryDelay;
+    private final TwoTierCacheManager manager;
+    
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+    
+    private volatile long redisRetryAt;
+    
+    TwoTierCache(
+            String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            JavaType valueType,
+            Duration ttl,
+            Duration redisRetryDelay,
+            TwoTierCacheManager manager,
+            MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.valueType = valueType;
+        this.ttl = ttl;
+        this.redisRetryDelay = redisRetryDelay;
+        this.manager = manager;
+        this.remoteHits = remoteCounter(meterRegistry, "hit");
+        this.remoteMisses = remoteCounter(meterRegistry, "miss");
+        this.remoteErrors = remoteCounter(meterRegistry, "error");
+    }
+    
+    private Counter remoteCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.l2.gets")
+            .tag("cache", name)
+            .tag("result", result)
+            .description("Redis (L2) lookups after an L1 miss")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return value;
+        }
+        
+        value = readRemote(localKey);
+        if (value != null) {
+            local.put(localKey, value);
+        }
+        return value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            return getInTransaction(key, valueLoader);
+        }
+        Object value = local.get(localKey(key), k -> {
+            Object remote = readRemote((String) k);
+            if (remote != null) {
+                return remote;
+            }
+            try {
+                Object loaded = toStoreValue(valueLoader.call());
+                writeRemote((String) k, loaded);
+                return loaded;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        });
+        return (T) fromStoreValue(value);
+    }
+    
+    /**
+     * The transaction-aware decorator passes get(key, valueLoader) straight through, and a value
+     * loaded inside a transaction may include uncommitted writes: it is cached in both tiers only
+     * once the transaction commits, like a put through the decorator
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getInTransaction(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(key, value);
+            }
+        });
+        return value;
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        Object storeValue = toStoreValue(value);
+        local.put(localKey, storeValue);
+        writeRemote(localKey, storeValue);
+    }
+    
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        if (isRedisAvailable()) {
+            try {
+                redisTemplate.delete(remoteKey(localKey));
+            } catch (Exception e) {
+                markRedisDown(e);
+            }
+        }
+        manager.publishEviction(name, localKey);
+    }
+    
+    /**
+     * Evict many keys at once: one multi-key DEL and one peer message per chunk of keys
+     */
+    void evictAll(Collection<?> keys) {
+        List<String> localKeys = keys.stream().map(this::localKey).toList();
+        local.invalidateAll(localKeys);
+        for (int from = 0; from < localKeys.size(); from += EVICT_CHUNK_SIZE) {
+            List<String> chunk = localKeys.subList(from, Math.min(from + EVICT_CHUNK_SIZE, localKeys.size()));
+            if (isRedisAvailable()) {
+                try {
+                    redisTemplate.delete(chunk.stream().map(this::remoteKey).toList());
+                } catch (Exception e) {
+                    markRedisDown(e);
+                }
+            }
+            manager.publishEvictions(name, chunk);
+        }
+    }
+    
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (isRedisAvailable()) {
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + name + ":*").count(500).build();
+            try (Cursor<String> keys = redisTemplate.scan(options)) {
+                keys.forEachRemaining(redisTemplate::delete);
+            } catch (Exception e) {
+                markRedisDown(e);
+            }
+        }
+        manager.publishEviction(name, null);
+    }
+    
+    /**
+     * Drop an L1 entry after an eviction on another node (null key = whole cache)
+     */
+    void evictLocal(String localKey) {
+        if (localKey == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(localKey);
+        }
+    }
+    
+    void evictLocal(Collection<String> localKeys) {
+        local.invalidateAll(localKeys);
+    }
+    
+    private Object readRemote(String localKey) {
+        if (!isRedisAvailable()) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(remoteKey(localKey));
+            if (json == null) {
+                remoteMisses.increment();
+                return null;
+            }
+            remoteHits.increment();
+            return NULL_VALUE.equals(json) ? toStoreValue(null) : objectMapper.readValue(json, valueType);
+        } catch (Exception e) {
+            remoteErrors.increment();
+            markRedisDown(e);
+            return null;
+        }
+    }
+    
+    private void writeRemote(String localKey, Object storeValue) {
+        if (!isRedisAvailable()) {
+            return;
+        }
+        try {
+            Object value = fromStoreValue(storeValue);
+            String json = value == null ? NULL_VALUE : objectMapper.writeValueAsString(value);
+            redisTemplate.opsForValue().set(remoteKey(localKey), json, ttl);
+        } catch (Exception e) {
+            markRedisDown(e);
+        }
+    }
+    
+    private boolean isRedisAvailable() {
+        return System.currentTimeMillis() >= redisRetryAt;
+    }
+    
+    private void markRedisDown(Exception e) {
+        redisRetryAt = System.currentTimeMillis() + redisRetryDelay.toMillis();
+        log.warn("Redis unavailable for cache '{}', using local tier only for {}: {}", name, redisRetryDelay, e.getMessage());
+    }
+    
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+    
+    private String remoteKey(String localKey) {
+        return KEY_PREFIX + name + ":" + localKey;
+    }
+}
@@ -0,0 +1,109 @@
+package com.smartsolutions.hub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache manager for TwoTierCache instances
+ * Transaction aware: puts and evictions made inside a transaction are applied after commit,
+ * so readers cannot re-cache a value the transaction is about to change.
+ * Also relays evictions between nodes over the hub:cache:invalidate channel.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+    
+    static final String CHANNEL = "hub:cache:invalidate";
+    private static final String ALL_KEYS = "*";
+    private static final String KEY_SEPARATOR = "\n";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, TwoTierCache> caches = new LinkedHashMap<>();
+    
+    public TwoTierCacheManager(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        setTransactionAware(true);
+    }
+    
+    void register(TwoTierCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+    
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return caches.values();
+    }
+    
+    /**
+     * Tell the other nodes to drop their L1 entry (null key = whole cache)
+     */
+    void publishEviction(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, cacheName + "|" + (key != null ? key : ALL_KEYS));
+        } catch (Exception e) {
+            log.warn("Could not publish eviction for cache '{}': {}", cacheName, e.getMessage());
+        }
+    }
+    
+    /**
+     * Tell the other nodes to drop several L1 entries in one message
+     */
+    void publishEvictions(String cacheName, Collection<String> keys) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, cacheName + "|" + String.join(KEY_SEPARATOR, keys));
+        } catch (Exception e) {
+            log.warn("Could not publish eviction for cache '{}': {}", cacheName, e.getMessage());
+        }
+    }
+    
+    /**
+     * Evict the given keys of a cache, after commit when a transaction is active
+     * For evictions too large for one evict() per key, but too small to clear the whole cache
+     */
+    public void evictAll(String cacheName, Collection<?> keys) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache == null || keys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evictAll(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evictAll(keys);
+            }
+        });
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0) {
+            return;
+        }
+        // Look up the undecorated cache: evictions from other nodes are not transactional
+        TwoTierCache cache = caches.get(body.substring(0, separator));
+        if (cache != null) {
+            String key = body.substring(separator + 1);
+            if (key.contains(KEY_SEPARATOR)) {
+                cache.evictLocal(List.of(key.split(KEY_SEPARATOR)));
+            } else {
+                cache.evictLocal(ALL_KEYS.equals(key) ? null : key);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.smartsolutions.hub.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Two-tier cache properties
+ * Values loaded from application.yml (hub.cache.* properties)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "hub.cache")
+@Getter
+@Setter
+public class TwoTierCacheProperties {
+    
+    /**
+     * How long to stay on the local tier only after a Redis error
+     */
+    private Duration redisRetryDelay = Duration.ofSeconds(30);
+    
+    /**
+     * Settings per cache name; caches not listed use the defaults below
+     */
+    private Map<String, Spec> caches = new HashMap<>();
+    
+    public Spec spec(String cacheName) {
+        return caches.getOrDefault(cacheName, new Spec());
+    }
+    
+    @Getter
+    @Setter
+    public static class Spec {
+        
+        /**
+         * Time to live in both tiers
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        
+        /**
+         * Maximum entries in the local tier
+         */
+        private long maxSize = 10000;
+    }
+}
@@ -103,13 +103,20 @@ public class AuthController {
     }
     
     /**
-     * Logout (client-side only, invalidates token on client)
+     * Logout: revokes the access token (and refresh token if provided) server-side
      */
     @PostMapping("/logout")
-    @Operation(summary = "Logout", description = "Logout user (client-side token removal)")
-    public ResponseEntity<Map<String, String>> logout() {
+    @Operation(summary = "Logout", description = "Revoke the current access token and optional refresh token")
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) LogoutRequest request) {
         log.info("Logout request received");
         
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7)
+            : null;
+        authService.logout(accessToken, request);
+        
         Map<String, String> response = new HashMap<>();
         response.put("message", "Logged out successfully");
         
@@ -1,12 +1,9 @@
 package com.smartsolutions.hub.controller;
 
 import com.smartsolutions.hub.dto.DashboardConfigDTO;
-import com.smartsolutions.hub.model.User;
-import com.smartsolutions.hub.security.UserPrincipal;
+import com.smartsolutions.hub.security.CurrentUser;
 import com.smartsolutions.hub.service.DashboardService;
-import com.smartsolutions.hub.service.UserService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,7 +14,6 @@ import java.util.List;
 public class DashboardController {
     
     private final DashboardService dashboardService;
-    private final UserService userService;
     
     @GetMapping("/available")
     public List<String> getAvailableDashboards() {
@@ -25,26 +21,14 @@ public class DashboardController {
     }
     
     @GetMapping("/me")
-    public DashboardConfigDTO getUserDashboardConfig(@AuthenticationPrincipal UserPrincipal principal) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        return dashboardService.getUserDashboardConfig(user.getId());
+    public DashboardConfigDTO getUserDashboardConfig(@CurrentUser Long userId) {
+        return dashboardService.getUserDashboardConfig(userId);
     }
     
     @PutMapping("/me")
     public DashboardConfigDTO saveDashboardConfig(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @RequestBody List<String> dashboardIds) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        return dashboardService.saveDashboardConfig(user.getId(), dashboardIds);
+        return dashboardService.saveDashboardConfig(userId, dashboardIds);
     }
 }
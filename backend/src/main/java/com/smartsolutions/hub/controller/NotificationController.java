@@ -1,14 +1,27 @@
 package com.smartsolutions.hub.controller;
 
+import com.smartsolutions.hub.dto.BroadcastNotificationRequest;
+import com.smartsolutions.hub.dto.BroadcastNotificationResult;
+import com.smartsolutions.hub.dto.BulkNotificationResult;
+import com.smartsolutions.hub.dto.CursorPage;
+import com.smartsolutions.hub.dto.NotificationBatchRequest;
+import com.smartsolutions.hub.dto.NotificationBatchResult;
 import com.smartsolutions.hub.dto.NotificationDTO;
-import com.smartsolutions.hub.model.User;
-import com.smartsolutions.hub.security.UserPrincipal;
+import com.smartsolutions.hub.dto.NotificationIdsRequest;
+import com.smartsolutions.hub.security.CurrentUser;
+import com.smartsolutions.hub.security.JwtAuthenticationFilter;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.service.NotificationBroadcastService;
+import com.smartsolutions.hub.service.NotificationIngestionService;
 import com.smartsolutions.hub.service.NotificationService;
-import com.smartsolutions.hub.service.UserService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/notifications")
@@ -16,43 +29,91 @@ import org.springframework.web.bind.annotation.*;
 public class NotificationController {
     
     private final NotificationService notificationService;
-    private final UserService userService;
+    private final NotificationIngestionService notificationIngestionService;
+    private final NotificationBroadcastService notificationBroadcastService;
     
     @GetMapping
     public Page<NotificationDTO> getNotifications(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        return notificationService.getUserNotifications(user.getId(), page, size);
+        return notificationService.getUserNotifications(userId, page, size);
+    }
+    
+    /**
+     * Cursor-based listing: ?after= for the first page, then ?after=<nextCursor>
+     * Preferred over page/size: constant cost at any depth and no count query
+     */
+    @GetMapping(params = "after")
+    public CursorPage<NotificationDTO> getNotificationsAfter(
+            @CurrentUser Long userId,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return notificationService.getUserNotificationsAfter(userId, after, size);
+    }
+    
+    /**
+     * Server-Sent Events: "notification" (id = notification id), "unread-count" and "resync"
+     * Send the last received id as Last-Event-ID when reconnecting to get what was missed
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @CurrentUser Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestAttribute(name = JwtAuthenticationFilter.ACCESS_TOKEN_ATTRIBUTE, required = false)
+            ParsedAccessToken accessToken) {
+        return notificationService.openStream(userId, lastEventId, accessToken);
     }
     
     @PutMapping("/{id}/read")
     public NotificationDTO markAsRead(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @PathVariable Long id) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        return notificationService.markAsRead(id, user.getId());
+        return notificationService.markAsRead(id, userId);
+    }
+    
+    /**
+     * Bulk variants: one UPDATE/DELETE each, only the caller's notifications are affected
+     */
+    @PutMapping("/read")
+    public BulkNotificationResult markAsRead(
+            @CurrentUser Long userId,
+            @Valid @RequestBody NotificationIdsRequest request) {
+        return notificationService.markAsRead(request.ids(), userId);
+    }
+    
+    @PutMapping("/read-all")
+    public BulkNotificationResult markAllAsRead(
+            @CurrentUser Long userId,
+            @RequestParam(required = false) Instant before) {
+        return notificationService.markAllAsRead(before, userId);
+    }
+    
+    @DeleteMapping
+    public BulkNotificationResult delete(
+            @CurrentUser Long userId,
+            @Valid @RequestBody NotificationIdsRequest request) {
+        return notificationService.delete(request.ids(), userId);
+    }
+    
+    /**
+     * Bulk creation for upstream systems (admin role, see SecurityConfig)
+     */
+    @PostMapping("/batch")
+    public NotificationBatchResult createBatch(@Valid @RequestBody NotificationBatchRequest request) {
+        return notificationIngestionService.ingest(request.notifications());
+    }
+    
+    /**
+     * One notification to every user of a site or role (admin role, see SecurityConfig)
+     */
+    @PostMapping("/broadcast")
+    public BroadcastNotificationResult broadcast(@Valid @RequestBody BroadcastNotificationRequest request) {
+        return notificationBroadcastService.broadcast(request);
     }
     
     @GetMapping("/unread-count")
-    public Long getUnreadCount(@AuthenticationPrincipal UserPrincipal principal) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        return notificationService.getUnreadCount(user.getId());
+    public Long getUnreadCount(@CurrentUser Long userId) {
+        return notificationService.getUnreadCount(userId);
     }
 }
@@ -1,7 +1,7 @@
 package com.smartsolutions.hub.controller;
 
 import com.smartsolutions.hub.dto.SiteDTO;
-import com.smartsolutions.hub.model.Site;
+import com.smartsolutions.hub.dto.SiteDetailsDTO;
 import com.smartsolutions.hub.security.UserPrincipal;
 import com.smartsolutions.hub.service.SiteService;
 import com.smartsolutions.hub.service.UserService;
@@ -39,7 +39,7 @@ public class SiteController {
     @Operation(summary = "Get my sites", description = "Retrieve sites assigned to the authenticated user")
     public List<SiteDTO> getUserSites(@AuthenticationPrincipal UserPrincipal principal) {
         log.info("GET /sites/me - user: {}", principal.email());
-        return userService.getUserSites(principal.siteIds());
+        return userService.getUserSites(principal.sites());
     }
     
     /**
@@ -47,7 +47,7 @@ public class SiteController {
      */
     @GetMapping
     @Operation(summary = "Get all sites", description = "Retrieve all construction sites")
-    public ResponseEntity<List<Site>> getAllSites(
+    public ResponseEntity<List<SiteDetailsDTO>> getAllSites(
         @Parameter(description = "Filter by status (active/inactive)")
         @RequestParam(required = false) String status
     ) {
@@ -65,7 +65,7 @@ public class SiteController {
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get site by ID", description = "Retrieve a specific construction site")
-    public ResponseEntity<Site> getSiteById(
+    public ResponseEntity<SiteDetailsDTO> getSiteById(
         @Parameter(description = "Site ID")
         @PathVariable Long id
     ) {
@@ -78,7 +78,7 @@ public class SiteController {
      */
     @GetMapping("/location/{location}")
     @Operation(summary = "Get sites by location", description = "Retrieve sites in a specific location")
-    public ResponseEntity<List<Site>> getSitesByLocation(
+    public ResponseEntity<List<SiteDetailsDTO>> getSitesByLocation(
         @Parameter(description = "Location name")
         @PathVariable String location
     ) {
@@ -91,7 +91,7 @@ public class SiteController {
      */
     @PostMapping("/by-ids")
     @Operation(summary = "Get sites by IDs", description = "Retrieve multiple sites by their IDs")
-    public ResponseEntity<List<Site>> getSitesByIds(
+    public ResponseEntity<List<SiteDetailsDTO>> getSitesByIds(
         @Parameter(description = "List of site IDs")
         @RequestBody List<Long> ids
     ) {
@@ -3,7 +3,7 @@ package com.smartsolutions.hub.controller;
 import com.smartsolutions.hub.dto.SiteDTO;
 import com.smartsolutions.hub.dto.UserDTO;
 import com.smartsolutions.hub.dto.UserPreferencesDTO;
-import com.smartsolutions.hub.model.User;
+import com.smartsolutions.hub.security.CurrentUser;
 import com.smartsolutions.hub.security.UserPrincipal;
 import com.smartsolutions.hub.service.UserService;
 import com.smartsolutions.hub.service.UserPreferencesService;
@@ -32,7 +32,7 @@ public class UserController {
         log.debug("  principal.email: {}", principal.email());
         log.debug("  principal.name: {}", principal.name());
         log.debug("  principal.role: {}", principal.role());
-        log.debug("  principal.siteIds: {}", principal.siteIds());
+        log.debug("  principal.siteIds: {}", principal.sites());
         log.debug("  SecurityContext authentication: {}", 
             org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication());
         
@@ -51,31 +51,24 @@ public class UserController {
     @GetMapping("/me/sites")
     public List<SiteDTO> getUserSites(@AuthenticationPrincipal UserPrincipal principal) {
         log.debug("getUserSites called with principal: id={}, email={}, siteIds={}", 
-            principal.id(), principal.email(), principal.siteIds());
-        return userService.getUserSites(principal.siteIds());
+            principal.id(), principal.email(), principal.sites());
+        return userService.getUserSites(principal.sites());
     }
     
     @PutMapping("/me/preferences")
     public UserDTO updatePreferences(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @RequestBody Map<String, Object> preferences) {
-        User user = userService.getOrCreateUser(
-            principal.email(),
-            principal.name(),
-            principal.role(),
-            principal.siteIds()
-        );
-        User updated = userService.updatePreferences(user.getId(), preferences);
-        return userService.toDTO(updated);
+        return userService.updatePreferences(userId, preferences);
     }
     
     /**
      * Get user preferences (tools, dashboards, settings)
      */
     @GetMapping("/me/preferences/v2")
-    public UserPreferencesDTO getUserPreferencesV2(@AuthenticationPrincipal UserPrincipal principal) {
-        log.debug("getUserPreferencesV2 called for user: {}", principal.id());
-        return userPreferencesService.getUserPreferences(principal.id());
+    public UserPreferencesDTO getUserPreferencesV2(@CurrentUser Long userId) {
+        log.debug("getUserPreferencesV2 called for user: {}", userId);
+        return userPreferencesService.getUserPreferences(userId);
     }
     
     /**
@@ -83,10 +76,10 @@ public class UserController {
      */
     @PutMapping("/me/preferences/v2")
     public UserPreferencesDTO updateUserPreferencesV2(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @RequestBody Map<String, Object> preferences) {
-        log.debug("updateUserPreferencesV2 called for user: {}", principal.id());
-        return userPreferencesService.updateUserPreferences(principal.id(), preferences);
+        log.debug("updateUserPreferencesV2 called for user: {}", userId);
+        return userPreferencesService.updateUserPreferences(userId, preferences);
     }
     
     /**
@@ -94,9 +87,9 @@ public class UserController {
      */
     @PatchMapping("/me/preferences/v2")
     public UserPreferencesDTO mergeUserPreferencesV2(
-            @AuthenticationPrincipal UserPrincipal principal,
+            @CurrentUser Long userId,
             @RequestBody Map<String, Object> partialPreferences) {
-        log.debug("mergeUserPreferencesV2 called for user: {}", principal.id());
-        return userPreferencesService.mergeUserPreferences(principal.id(), partialPreferences);
+        log.debug("mergeUserPreferencesV2 called for user: {}", userId);
+        return userPreferencesService.mergeUserPreferences(userId, partialPreferences);
     }
 }
@@ -0,0 +1,19 @@
+package com.smartsolutions.hub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Notification sent to every user of a site (siteId) or of a role (role); exactly one target is set
+ */
+public record BroadcastNotificationRequest(
+    Long siteId,
+    @Pattern(regexp = "operationnel|director|admin") String role,
+    @NotBlank @Size(max = 255) String title,
+    @Size(max = 10000) String message,
+    @NotNull @Pattern(regexp = "info|warning|error|success") String type,
+    @NotNull @Pattern(regexp = "low|medium|high") String priority,
+    @Size(max = 500) String actionUrl
+) {}
@@ -0,0 +1,5 @@
+package com.smartsolutions.hub.dto;
+
+public record BroadcastNotificationResult(
+    int recipients
+) {}
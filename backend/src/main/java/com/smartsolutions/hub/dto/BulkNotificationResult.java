@@ -0,0 +1,10 @@
+package com.smartsolutions.hub.dto;
+
+/**
+ * Result of a bulk notification update or delete
+ * affected only counts the caller's own notifications; unreadCount is read after the change
+ */
+public record BulkNotificationResult(
+    int affected,
+    long unreadCount
+) {}
@@ -0,0 +1,20 @@
+package com.smartsolutions.hub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+
+public record CreateNotificationRequest(
+    @NotNull Long userId,
+    @NotBlank @Size(max = 255) String title,
+    @Size(max = 10000) String message,
+    @NotNull @Pattern(regexp = "info|warning|error|success") String type,
+    @NotNull @Pattern(regexp = "low|medium|high") String priority,
+    @Size(max = 500) String actionUrl,
+    @Size(max = 255) String dedupeKey,
+    Instant deliverAt, // null or past = deliver now
+    Instant expiresAt // null = never expires
+) {}
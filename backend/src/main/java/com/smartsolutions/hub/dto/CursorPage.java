@@ -0,0 +1,12 @@
+package com.smartsolutions.hub.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list
+ * nextCursor is null on the last page; pass it as ?after= to get the next page
+ */
+public record CursorPage<T>(
+    List<T> items,
+    String nextCursor
+) {}
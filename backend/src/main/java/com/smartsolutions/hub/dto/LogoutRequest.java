@@ -0,0 +1,24 @@
+package com.smartsolutions.hub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Logout request DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogoutRequest {
+    
+    /**
+     * Refresh token to revoke along with the access token (optional)
+     */
+    private String refreshToken;
+    
+    /**
+     * Revoke every token of the user on all devices
+     */
+    private Boolean allDevices = false;
+}
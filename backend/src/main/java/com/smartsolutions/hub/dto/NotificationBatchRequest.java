@@ -0,0 +1,12 @@
+package com.smartsolutions.hub.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Batch of notifications to create; items are validated one by one (see NotificationBatchResult)
+ */
+public record NotificationBatchRequest(
+    @NotEmpty List<CreateNotificationRequest> notifications
+) {}
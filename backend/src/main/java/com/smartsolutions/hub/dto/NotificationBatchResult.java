@@ -0,0 +1,23 @@
+package com.smartsolutions.hub.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a notification batch: valid items are accepted (of which some were coalesced
+ * into an existing notification, deferred to a digest or scheduled for later delivery),
+ * invalid ones are listed with their position in the request and the reason
+ */
+public record NotificationBatchResult(
+    int accepted,
+    int coalesced,
+    int deferred,
+    int scheduled,
+    int rejected,
+    List<Rejection> rejections
+) {
+    
+    public record Rejection(
+        int index,
+        String reason
+    ) {}
+}
@@ -10,5 +10,7 @@ public record NotificationDTO(
     String priority,
     Boolean isRead,
     String actionUrl,
-    Instant createdAt
+    Instant createdAt,
+    Integer occurrences,
+    Instant lastOccurredAt
 ) {}
@@ -0,0 +1,10 @@
+package com.smartsolutions.hub.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record NotificationIdsRequest(
+    @NotEmpty @Size(max = 500) List<Long> ids
+) {}
@@ -0,0 +1,29 @@
+package com.smartsolutions.hub.dto;
+
+import com.smartsolutions.hub.model.Site;
+
+import java.time.Instant;
+
+/**
+ * Immutable copy of a site, shared by every reader of the in-memory site catalog
+ */
+public record SiteDetailsDTO(
+    Long id,
+    String name,
+    String location,
+    String status,
+    Instant createdAt,
+    Instant updatedAt
+) {
+    
+    public static SiteDetailsDTO from(Site site) {
+        return new SiteDetailsDTO(
+            site.getId(),
+            site.getName(),
+            site.getLocation(),
+            site.getStatus(),
+            site.getCreatedAt(),
+            site.getUpdatedAt()
+        );
+    }
+}
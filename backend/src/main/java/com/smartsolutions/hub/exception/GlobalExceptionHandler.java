@@ -1,5 +1,6 @@
 package com.smartsolutions.hub.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -78,6 +79,21 @@ public class GlobalExceptionHandler {
             ));
     }
     
+    /**
+     * Handle ServiceUnavailableException (503)
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of(
+                "timestamp", Instant.now(),
+                "message", ex.getMessage(),
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value()
+            ));
+    }
+    
     /**
      * Handle generic RuntimeException (400)
      */
@@ -17,8 +17,10 @@ import java.time.Instant;
 @EntityListeners(AuditingEntityListener.class)
 public class Notification {
     
+    // Pooled sequence (see V12): one nextval per 50 rows, and inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_id_seq")
+    @SequenceGenerator(name = "notifications_id_seq", sequenceName = "notifications_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "user_id", nullable = false)
@@ -45,4 +47,18 @@ public class Notification {
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
+    
+    // Coalescing (see NotificationCoalescer): repeats with the same key update this row
+    @Column(name = "dedupe_key")
+    private String dedupeKey;
+    
+    @Column(nullable = false)
+    private Integer occurrences = 1;
+    
+    @Column(name = "last_occurred_at")
+    private Instant lastOccurredAt;
+    
+    // Deleted by NotificationScheduler once passed; null = never expires
+    @Column(name = "expires_at")
+    private Instant expiresAt;
 }
@@ -39,6 +39,10 @@ public class User {
     @Column(name = "site_id")
     private List<Long> siteIds = new ArrayList<>();
     
+    // Bumped by database triggers whenever role or siteIds change (see V17); never written from here
+    @Column(name = "authz_version", nullable = false, insertable = false, updatable = false)
+    private Integer authzVersion = 0;
+    
     @Column(name = "preferred_language")
     private String preferredLanguage = "fr";
     
@@ -42,7 +42,8 @@ public class UserPreferences {
      *   "selectedSite": "...",    // Last selected site
      *   "sidebarOpen": true/false,// Sidebar state
      *   "language": "fr",         // Preferred language
-     *   "notifications": true     // Notifications enabled
+     *   "notifications": true,    // Notifications enabled
+     *   "notificationDigest": true// Low-priority notifications as periodic digests
      * }
      */
     @JdbcTypeCode(SqlTypes.JSON)
@@ -4,10 +4,83 @@ import com.smartsolutions.hub.model.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     Long countByUserIdAndIsRead(Long userId, Boolean isRead);
+    
+    /**
+     * Unread count from the materialized counter (primary key lookup)
+     */
+    @Query(value = "SELECT COALESCE((SELECT unread_count FROM notification_counters WHERE user_id = :userId), 0)",
+        nativeQuery = true)
+    Long findUnreadCount(@Param("userId") Long userId);
+    
+    /**
+     * Unread counts of several users: [userId, unreadCount] (users without a counter are absent)
+     */
+    @Query(value = "SELECT user_id, unread_count FROM notification_counters WHERE user_id IN (:userIds)",
+        nativeQuery = true)
+    List<Object[]> findUnreadCounts(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * First keyset page, newest first (List result: no count query)
+     */
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findLatest(@Param("userId") Long userId, Pageable limit);
+    
+    /**
+     * Next keyset page: notifications strictly older than the (createdAt, id) cursor
+     */
+    @Query("""
+        SELECT n FROM Notification n
+        WHERE n.userId = :userId AND (n.createdAt, n.id) < (:createdAt, :id)
+        ORDER BY n.createdAt DESC, n.id DESC
+        """)
+    List<Notification> findOlderThan(
+        @Param("userId") Long userId,
+        @Param("createdAt") Instant createdAt,
+        @Param("id") Long id,
+        Pageable limit
+    );
+    
+    /**
+     * Creation time of one of the user's notifications (the stream's Last-Event-ID)
+     */
+    @Query("SELECT n.createdAt FROM Notification n WHERE n.userId = :userId AND n.id = :id")
+    Optional<Instant> findCreatedAt(@Param("userId") Long userId, @Param("id") Long id);
+    
+    /**
+     * Stream resume: notifications created since the given instant, oldest first
+     */
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.createdAt >= :since ORDER BY n.createdAt, n.id")
+    List<Notification> findCreatedSince(@Param("userId") Long userId, @Param("since") Instant since, Pageable limit);
+    
+    /**
+     * Bulk mark as read; ids of other users are ignored (triggers adjust the unread counter)
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.id IN :ids AND n.isRead = false")
+    int markRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("""
+        UPDATE Notification n SET n.isRead = true
+        WHERE n.userId = :userId AND n.createdAt < :before AND n.isRead = false
+        """)
+    int markAllReadBefore(@Param("userId") Long userId, @Param("before") Instant before);
+    
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId AND n.id IN :ids")
+    int deleteOwned(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
 }
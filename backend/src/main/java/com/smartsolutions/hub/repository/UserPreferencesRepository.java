@@ -2,9 +2,13 @@ package com.smartsolutions.hub.repository;
 
 import com.smartsolutions.hub.model.UserPreferences;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserPreferencesRepository extends JpaRepository<UserPreferences, Long> {
@@ -18,4 +22,13 @@ public interface UserPreferencesRepository extends JpaRepository<UserPreferences
      * Delete user preferences by user ID
      */
     void deleteByUserId(Long userId);
+    
+    /**
+     * Users among the given ids whose "notificationDigest" preference is on
+     */
+    @Query(value = """
+        SELECT user_id FROM user_preferences
+        WHERE user_id IN (:userIds) AND (preferences ->> 'notificationDigest') = 'true'
+        """, nativeQuery = true)
+    Set<Long> findDigestUserIds(@Param("userIds") Collection<Long> userIds);
 }
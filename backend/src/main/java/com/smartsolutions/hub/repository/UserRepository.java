@@ -1,13 +1,80 @@
 package com.smartsolutions.hub.repository;
 
 import com.smartsolutions.hub.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByPasswordResetToken(String token);
+    
+    /**
+     * Find a user with its site ids loaded, for use outside a transaction
+     */
+    @EntityGraph(attributePaths = "siteIds")
+    Optional<User> findWithSiteIdsByEmail(String email);
+    
+    /**
+     * Find only the id of a user (no entity or site collection loading)
+     */
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+    
+    /**
+     * Insert a user unless the email already exists
+     * Returns the new id, or empty if another transaction created the user first
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO users (email, name, role, preferred_language, notification_enabled,
+                           account_non_locked, failed_login_attempts)
+        VALUES (:email, :name, :role, 'fr', true, true, 0)
+        ON CONFLICT (email) DO NOTHING
+        RETURNING id
+        """, nativeQuery = true)
+    Optional<Long> insertIfAbsent(
+        @Param("email") String email,
+        @Param("name") String name,
+        @Param("role") String role
+    );
+    
+    /**
+     * Assign a site to a user, ignoring existing assignments
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO user_sites (user_id, site_id) VALUES (:userId, :siteId) ON CONFLICT DO NOTHING",
+        nativeQuery = true)
+    int insertUserSite(@Param("userId") Long userId, @Param("siteId") Long siteId);
+    
+    /**
+     * Lock an account after too many failed logins
+     * Run in a short transaction after the failed password check (see AuthService.login)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.accountNonLocked = false, u.failedLoginAttempts = :attempts WHERE u.id = :userId")
+    int lockAccount(@Param("userId") Long userId, @Param("attempts") int attempts);
+    
+    /**
+     * Users whose authorization changed at least once: [id, authzVersion]
+     */
+    @Query("SELECT u.id, u.authzVersion FROM User u WHERE u.authzVersion > 0")
+    List<Object[]> findChangedAuthorizationVersions();
+    
+    /**
+     * The subset of the given ids that exist
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
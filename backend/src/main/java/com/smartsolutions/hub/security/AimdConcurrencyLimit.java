@@ -0,0 +1,67 @@
+package com.smartsolutions.hub.security;
+
+import com.smartsolutions.hub.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD Concurrency Limit
+ * Additive increase, multiplicative decrease: while requests complete quickly and the
+ * limit is actually used, it grows by one per limit's worth of requests; a slow or failed
+ * request multiplies it by the backoff ratio. Requests beyond the limit are refused.
+ * One congestion episode decreases the limit once: only requests started after the last
+ * decrease can trigger the next one, not the whole window of requests already in flight.
+ */
+public class AimdConcurrencyLimit {
+    
+    private final ConcurrencyLimitProperties.Group config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long lastDecreaseNanos = System.nanoTime();
+    
+    public AimdConcurrencyLimit(ConcurrencyLimitProperties.Group config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+    }
+    
+    /**
+     * Reserve a slot; false if the group is at its limit
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Release a slot and adjust the limit from the outcome of the request started at startNanos
+     */
+    public void release(long startNanos, boolean failed) {
+        long now = System.nanoTime();
+        int current = inFlight.getAndDecrement();
+        boolean congested = failed || now - startNanos > config.getLatencyThreshold().toNanos();
+        
+        synchronized (this) {
+            if (congested) {
+                // Requests sent before the last decrease saw the old limit: they do not count again
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+                    lastDecreaseNanos = now;
+                }
+            } else if (current * 2 >= limit) {
+                // Only grow while at least half the limit is in use
+                limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+            }
+        }
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartsolutions.hub.security;
+
+import com.smartsolutions.hub.repository.UserRepository;
+import com.smartsolutions.hub.service.PgChannelListener;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authorization Version Service
+ * Tracks the current authorization version of each user whose role or sites changed,
+ * so JwtAuthenticationFilter rejects tokens carrying a stale role or site list with one
+ * memory lookup. The version is bumped by database triggers (see V17), whichever tool made
+ * the change; loaded from the users table, kept in sync through the hub_authz channel.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuthorizationVersionService {
+    
+    private static final String CHANNEL = "hub_authz";
+    
+    private final UserRepository userRepository;
+    private final PgChannelListener pgChannelListener;
+    
+    /**
+     * user id -> current authorization version (users still at version 0 are absent)
+     */
+    private final ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        load();
+        pgChannelListener.subscribe(CHANNEL, this::onVersion, this::load);
+    }
+    
+    /**
+     * Whether a token was issued before the user's last role or site change (memory only)
+     */
+    public boolean isStale(ParsedAccessToken token) {
+        if (token.userId() == null) {
+            return false;
+        }
+        Integer current = versions.get(token.userId());
+        return current != null && token.authzVersion() < current;
+    }
+    
+    /**
+     * Read every changed version; also run after the listener (re)connects, as bumps may have been missed
+     */
+    private void load() {
+        userRepository.findChangedAuthorizationVersions().forEach(row ->
+            versions.merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), Math::max));
+        log.info("Loaded authorization versions for {} users", versions.size());
+    }
+    
+    /**
+     * Payload "<user id>|<version>", sent by the users_authz_version_notify trigger
+     */
+    private void onVersion(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length != 2) {
+            return;
+        }
+        try {
+            versions.merge(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Math::max);
+        } catch (NumberFormatException e) {
+            log.warn("Malformed authorization event ignored");
+        }
+    }
+}
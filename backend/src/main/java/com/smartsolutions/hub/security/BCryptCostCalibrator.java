@@ -0,0 +1,60 @@
+package com.smartsolutions.hub.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * BCrypt Cost Calibrator
+ * Picks the highest BCrypt cost whose hashing time on this machine stays within a latency budget
+ * Each cost step doubles the work, so calibration stops as soon as the next step would exceed the budget
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+    
+    private static final String SAMPLE_PASSWORD = "calibration-Sample-1234!";
+    private static final int SAMPLES = 3;
+    
+    private BCryptCostCalibrator() {
+    }
+    
+    public static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+        long budgetNanos = targetLatency.toNanos();
+        
+        // Warm up the JIT so the first measurement is not inflated
+        new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+        
+        int cost = minCost;
+        long measured = measure(cost);
+        // Each step doubles the work: skip measuring steps that cannot fit the budget
+        while (cost < maxCost && measured * 2 <= budgetNanos) {
+            long next = measure(cost + 1);
+            if (next > budgetNanos) {
+                break;
+            }
+            cost++;
+            measured = next;
+        }
+        
+        log.info("BCrypt cost calibrated to {} (target: {} ms, measured: {} ms at cost {})",
+            cost, targetLatency.toMillis(), measured / 1_000_000, cost);
+        return cost;
+    }
+    
+    /**
+     * Median hashing time at the given cost, in nanoseconds
+     */
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
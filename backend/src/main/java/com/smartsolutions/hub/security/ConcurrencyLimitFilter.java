@@ -0,0 +1,134 @@
+package com.smartsolutions.hub.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsolutions.hub.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency Limit Filter
+ * Sheds load with 503 once a route group (auth, reads, writes) has as many requests in flight
+ * as its adaptive limit allows, so a slow database cannot pin every Tomcat thread.
+ * Health checks are never limited. Registered first in the servlet chain (see WebMvcConfig).
+ * Async requests (notification streams) give their slot back as soon as the handler returns.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    private static final long SHED_LOG_INTERVAL_MS = 10_000;
+    
+    private final ConcurrencyLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, AimdConcurrencyLimit> limits = new HashMap<>();
+    private final Map<String, Counter> rejections = new HashMap<>();
+    
+    /**
+     * Shedding is counted in hub.concurrency.rejected and logged at most once per interval
+     */
+    private final AtomicLong nextShedLogAt = new AtomicLong();
+    
+    public ConcurrencyLimitFilter(
+            ConcurrencyLimitProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        register("auth", properties.getAuth(), meterRegistry);
+        register("reads", properties.getReads(), meterRegistry);
+        register("writes", properties.getWrites(), meterRegistry);
+    }
+    
+    private void register(String group, ConcurrencyLimitProperties.Group config, MeterRegistry meterRegistry) {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(config);
+        limits.put(group, limit);
+        rejections.put(group, Counter.builder("hub.concurrency.rejected")
+            .tag("group", group)
+            .description("Requests shed because the group was at its concurrency limit")
+            .register(meterRegistry));
+        Gauge.builder("hub.concurrency.limit", limit, AimdConcurrencyLimit::getLimit)
+            .tag("group", group)
+            .description("Current adaptive concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("hub.concurrency.in-flight", limit, AimdConcurrencyLimit::getInFlight)
+            .tag("group", group)
+            .description("Requests currently in flight")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !properties.isEnabled()
+            || path.equals("/actuator/health")
+            || path.startsWith("/actuator/health/");
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        
+        String group = groupOf(request);
+        AimdConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            reject(request, response, group);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            limit.release(start, failed);
+        }
+    }
+    
+    private String groupOf(HttpServletRequest request) {
+        if (request.getServletPath().startsWith("/auth/")) {
+            return "auth";
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) ? "reads" : "writes";
+    }
+    
+    private void reject(HttpServletRequest request, HttpServletResponse response, String group) throws IOException {
+        rejections.get(group).increment();
+        long now = System.currentTimeMillis();
+        long logAt = nextShedLogAt.get();
+        if (now >= logAt && nextShedLogAt.compareAndSet(logAt, now + SHED_LOG_INTERVAL_MS)) {
+            log.warn("Shedding {} requests, e.g. {} (limit {} reached; see hub.concurrency.rejected)",
+                group, request.getServletPath(), limits.get(group).getLimit());
+        }
+        
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", "Server is overloaded. Please retry shortly.");
+        body.put("path", request.getServletPath());
+        
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
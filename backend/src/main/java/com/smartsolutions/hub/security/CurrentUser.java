@@ -0,0 +1,19 @@
+package com.smartsolutions.hub.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the database id of the authenticated user into a controller parameter
+ * The user is provisioned lazily the first time it is seen
+ *
+ * Usage: {@code public List<ToolDTO> getUserTools(@CurrentUser Long userId)}
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
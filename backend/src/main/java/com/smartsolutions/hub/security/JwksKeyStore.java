@@ -0,0 +1,99 @@
+package com.smartsolutions.hub.security;
+
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.security.Key;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * JWKS Key Store
+ * Holds the Azure AD signing keys (kid -> public key) used to verify external access tokens.
+ * The keyset is loaded by the scheduler, never during startup, and reloaded periodically
+ * or when a token references an unknown kid (key rotation). Lookups are memory only.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwksKeyStore {
+    
+    private final HubSecurityProperties securityProperties;
+    private final ResourceLoader resourceLoader;
+    
+    private final AtomicReference<Map<String, Key>> keys = new AtomicReference<>(Map.of());
+    private final AtomicLong lastRefreshAttempt = new AtomicLong();
+    
+    public boolean isEnabled() {
+        HubSecurityProperties.Azure azure = securityProperties.getAzure();
+        return azure.isEnabled() && azure.getJwksLocation() != null && !azure.getJwksLocation().isBlank();
+    }
+    
+    /**
+     * Find the public key for a kid; an unknown kid triggers a background reload
+     */
+    public Optional<Key> find(String keyId) {
+        if (keyId == null || !isEnabled()) {
+            return Optional.empty();
+        }
+        Key key = keys.get().get(keyId);
+        if (key == null) {
+            refreshInBackground();
+        }
+        return Optional.ofNullable(key);
+    }
+    
+    /**
+     * Reload the keyset (first run right after startup)
+     * On failure the previous keys are kept
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${hub.security.azure.jwks-refresh-interval-ms:3600000}")
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+        lastRefreshAttempt.set(System.currentTimeMillis());
+        String location = securityProperties.getAzure().getJwksLocation();
+        
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            JwkSet jwkSet;
+            try (InputStream in = resource.getInputStream()) {
+                jwkSet = Jwks.setParser().build().parse(in);
+            }
+            
+            Map<String, Key> loaded = jwkSet.getKeys().stream()
+                .filter(jwk -> jwk.getId() != null)
+                .collect(Collectors.toUnmodifiableMap(Jwk::getId, jwk -> (Key) jwk.toKey(), (first, second) -> first));
+            keys.set(loaded);
+            log.info("Loaded {} signing keys from {}", loaded.size(), location);
+        } catch (Exception e) {
+            log.warn("Could not load JWKS from {}, keeping {} known keys: {}", location, keys.get().size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Reload asynchronously, at most once per minRefreshInterval
+     */
+    private void refreshInBackground() {
+        long now = System.currentTimeMillis();
+        long last = lastRefreshAttempt.get();
+        long minInterval = securityProperties.getAzure().getMinRefreshInterval().toMillis();
+        if (now - last >= minInterval && lastRefreshAttempt.compareAndSet(last, now)) {
+            CompletableFuture.runAsync(this::refresh);
+        }
+    }
+}
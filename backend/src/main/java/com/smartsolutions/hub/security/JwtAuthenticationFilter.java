@@ -9,14 +9,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.List;
 
 /**
  * JWT Authentication Filter
@@ -27,7 +27,42 @@ import java.util.Collections;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
+    /**
+     * Public paths that never need a principal (context path excluded)
+     */
+    private static final List<String> SKIPPED_PATHS = List.of(
+        "/auth/**",
+        "/api-docs/**",
+        "/swagger-ui/**",
+        "/swagger-ui.html"
+    );
+    
+    /**
+     * Paths under /auth that still read the authenticated principal
+     */
+    private static final List<String> AUTHENTICATED_AUTH_PATHS = List.of(
+        "/auth/mock/current-user"
+    );
+    
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    
+    /**
+     * Request attribute holding the verified ParsedAccessToken (read by long-lived requests such as streams)
+     */
+    public static final String ACCESS_TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".ACCESS_TOKEN";
+    
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final AuthorizationVersionService authorizationVersionService;
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (AUTHENTICATED_AUTH_PATHS.contains(path)) {
+            return false;
+        }
+        return SKIPPED_PATHS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
     
     @Override
     protected void doFilterInternal(
@@ -39,46 +74,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract JWT token from Authorization header
             String token = extractTokenFromRequest(request);
             
-            if (token != null && jwtService.validateAccessToken(token)) {
-                // Extract user information from token
-                String email = jwtService.extractEmail(token);
-                Long userId = jwtService.extractUserId(token);
-                String name = jwtService.extractName(token);
-                String role = jwtService.extractRole(token);
-                java.util.List<Long> siteIds = jwtService.extractSiteIds(token);
-                
-                if (email != null) {
-                    // ALWAYS clear existing authentication to avoid session caching issues
-                    SecurityContextHolder.clearContext();
-                    
-                    // Create authentication object with all user information from token
-                    UserPrincipal userPrincipal = new UserPrincipal(
-                        userId,
-                        email,
-                        name != null ? name : "",
-                        role != null ? role : "USER",
-                        siteIds != null ? siteIds : Collections.emptyList()
-                    );
-                    
-                    log.debug("Creating UserPrincipal: userId={}, email={}, name={}, role={}, siteIds={}", 
-                        userId, email, name, role, siteIds);
-                    
-                    UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                            userPrincipal,
-                            null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + (role != null ? role.toUpperCase() : "USER")))
-                        );
-                    
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // Set authentication in security context
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    log.debug("JWT authentication successful for user: {} ({})", name, email);
-                    log.debug("After setting authentication - SecurityContext: {}", 
-                        SecurityContextHolder.getContext().getAuthentication());
-                }
+            if (token != null) {
+                // Verify signature once and read every claim from the same parse
+                jwtService.parseAccessToken(token)
+                    .filter(parsed -> parsed.email() != null)
+                    .filter(parsed -> !tokenRevocationService.isRevoked(parsed))
+                    // Role or sites changed since issue: the client refreshes to get a current token
+                    .filter(parsed -> !authorizationVersionService.isStale(parsed))
+                    .ifPresent(parsed -> authenticate(parsed, request));
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication from JWT: {}", e.getMessage());
@@ -87,6 +90,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Set the security context from a verified token
+     */
+    private void authenticate(ParsedAccessToken parsed, HttpServletRequest request) {
+        // ALWAYS clear existing authentication to avoid session caching issues
+        SecurityContextHolder.clearContext();
+        
+        UserPrincipal userPrincipal = UserPrincipal.from(parsed);
+        
+        // Pass the SiteSet itself: it is only formatted when debug logging is enabled
+        log.debug("Creating UserPrincipal: userId={}, email={}, role={}, siteIds={}",
+            userPrincipal.id(), userPrincipal.email(), userPrincipal.role(), userPrincipal.sites());
+        
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(
+                userPrincipal,
+                null,
+                userPrincipal.getAuthorities()
+            );
+        
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        request.setAttribute(ACCESS_TOKEN_ATTRIBUTE, parsed);
+        
+        // Set authentication in security context
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        
+        log.debug("JWT authentication successful for user: {}", userPrincipal.email());
+    }
+    
     /**
      * Extract JWT token from Authorization header
      */
@@ -0,0 +1,116 @@
+package com.smartsolutions.hub.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Login Attempt Store
+ * Counts failed logins per email in Redis (INCR, expiring one window after the first failure),
+ * so the limit holds across every node and survives deploys. While Redis is unreachable, each
+ * node falls back to its own in-memory sliding window.
+ * Only the lock transition itself is written to the users table
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAttemptStore {
+    
+    private static final String KEY_PREFIX = "hub:login:failures:";
+    
+    /**
+     * Count a failure; the window starts with the first one
+     */
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT = RedisScript.of("""
+        local failures = redis.call('INCR', KEYS[1])
+        if failures == 1 then
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+        end
+        return failures
+        """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final HubSecurityProperties securityProperties;
+    
+    private Cache<String, Deque<Long>> localFailures;
+    
+    private volatile long redisRetryAt;
+    
+    @PostConstruct
+    public void init() {
+        this.localFailures = Caffeine.newBuilder()
+            .expireAfterAccess(securityProperties.getLoginAttempts().getWindow())
+            .maximumSize(securityProperties.getLoginAttempts().getMaxTrackedEmails())
+            .build();
+    }
+    
+    /**
+     * Record a failed attempt and return the number of failures within the window
+     */
+    public int recordFailure(String email) {
+        String key = normalize(email);
+        if (System.currentTimeMillis() >= redisRetryAt) {
+            try {
+                Long failures = redisTemplate.execute(RECORD_FAILURE_SCRIPT, List.of(KEY_PREFIX + key),
+                    Long.toString(securityProperties.getLoginAttempts().getWindow().toMillis()));
+                if (failures != null) {
+                    return failures.intValue();
+                }
+            } catch (Exception e) {
+                markRedisDown(e);
+            }
+        }
+        return recordLocalFailure(key);
+    }
+    
+    /**
+     * Forget failures (successful login or account lock)
+     */
+    public void reset(String email) {
+        String key = normalize(email);
+        localFailures.invalidate(key);
+        if (System.currentTimeMillis() < redisRetryAt) {
+            return;
+        }
+        try {
+            redisTemplate.delete(KEY_PREFIX + key);
+        } catch (Exception e) {
+            markRedisDown(e);
+        }
+    }
+    
+    private int recordLocalFailure(String key) {
+        long now = System.currentTimeMillis();
+        Deque<Long> timestamps = localFailures.get(key, k -> new ArrayDeque<>());
+        synchronized (timestamps) {
+            timestamps.addLast(now);
+            long windowStart = now - securityProperties.getLoginAttempts().getWindow().toMillis();
+            while (!timestamps.isEmpty() && timestamps.peekFirst() < windowStart) {
+                timestamps.pollFirst();
+            }
+            return timestamps.size();
+        }
+    }
+    
+    private void markRedisDown(Exception e) {
+        Duration retryDelay = securityProperties.getLoginAttempts().getRedisRetryDelay();
+        redisRetryAt = System.currentTimeMillis() + retryDelay.toMillis();
+        log.warn("Login attempt counters unavailable in Redis, counting on this node only for {}: {}",
+            retryDelay, e.getMessage());
+    }
+    
+    private String normalize(String email) {
+        return email.trim().toLowerCase();
+    }
+}
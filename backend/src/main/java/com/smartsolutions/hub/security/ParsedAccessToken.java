@@ -0,0 +1,26 @@
+package com.smartsolutions.hub.security;
+
+import java.time.Instant;
+
+/**
+ * Verified access token claims
+ * Produced by a single signature verification in JwtService.parseAccessToken
+ */
+public record ParsedAccessToken(
+    Long userId,
+    String email,
+    String name,
+    String role,
+    SiteSet sites,
+    int authzVersion,
+    String tokenId,
+    Instant issuedAt,
+    Instant expiresAt
+) {
+    
+    public ParsedAccessToken {
+        name = name != null ? name : "";
+        role = role != null ? role : "USER";
+        sites = sites != null ? sites : SiteSet.empty();
+    }
+}
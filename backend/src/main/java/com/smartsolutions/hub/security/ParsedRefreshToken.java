@@ -0,0 +1,15 @@
+package com.smartsolutions.hub.security;
+
+import java.time.Instant;
+
+/**
+ * Verified refresh token claims
+ */
+public record ParsedRefreshToken(
+    Long userId,
+    String email,
+    String tokenId,
+    Instant issuedAt,
+    Instant expiresAt
+) {
+}
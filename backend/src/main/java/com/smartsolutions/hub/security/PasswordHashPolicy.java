@@ -0,0 +1,59 @@
+package com.smartsolutions.hub.security;
+
+/**
+ * Password hash policy chosen at startup
+ * Hashes are stored in DelegatingPasswordEncoder format: {bcrypt}$2a$<cost>$...
+ * The BCrypt cost is part of every hash, so it can be checked without extra columns
+ */
+public record PasswordHashPolicy(String encodingId, int bcryptCost) {
+    
+    private static final String BCRYPT_ID = "bcrypt";
+    
+    public static PasswordHashPolicy bcrypt(int cost) {
+        return new PasswordHashPolicy(BCRYPT_ID, cost);
+    }
+    
+    /**
+     * Prefix written in front of new hashes
+     */
+    public String prefix() {
+        return "{" + encodingId + "}";
+    }
+    
+    /**
+     * Read the BCrypt cost from a stored hash, with or without the {bcrypt} prefix
+     * Returns -1 if the hash is not a BCrypt hash
+     */
+    public static int costOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        String hash = encodedPassword.startsWith("{" + BCRYPT_ID + "}")
+            ? encodedPassword.substring(BCRYPT_ID.length() + 2)
+            : encodedPassword;
+        // $2a$10$... -> "10"
+        if (hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Whether a stored hash should be replaced on the next successful login:
+     * legacy format (no algorithm prefix), another algorithm, or a cost below the target.
+     * Stronger hashes are kept: rehashing them down would cost a second BCrypt run for nothing.
+     */
+    public boolean isOffTarget(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        if (!encodedPassword.startsWith(prefix())) {
+            return true;
+        }
+        return costOf(encodedPassword) < bcryptCost;
+    }
+}
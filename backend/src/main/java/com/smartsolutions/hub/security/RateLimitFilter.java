@@ -0,0 +1,155 @@
+package com.smartsolutions.hub.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rate Limit Filter
+ * Runs ahead of JwtAuthenticationFilter and throttles the configured routes
+ * (hub.security.rate-limit.routes) per client IP and per email, so credential stuffing
+ * is rejected before it reaches BCrypt or the users table. Rejections get 429 with Retry-After.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    
+    private final RateLimiter rateLimiter;
+    private final HubSecurityProperties securityProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !securityProperties.getRateLimit().isEnabled() || matchingRoutes(request).isEmpty();
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        
+        List<HubSecurityProperties.Route> routes = matchingRoutes(request);
+        HttpServletRequest effectiveRequest = request;
+        
+        // Only read the body when a matching route limits per email
+        String email = null;
+        if (routes.stream().anyMatch(route -> route.getPerEmail() > 0)) {
+            CachedBodyHttpServletRequest cached;
+            try {
+                cached = new CachedBodyHttpServletRequest(request, securityProperties.getRateLimit().getMaxBodyBytes());
+            } catch (CachedBodyHttpServletRequest.BodyTooLargeException e) {
+                writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+                return;
+            }
+            email = readEmail(cached);
+            effectiveRequest = cached;
+        }
+        
+        // Client address from X-Forwarded-For when the request came through a trusted proxy
+        // (server.forward-headers-strategy=native, server.tomcat.remoteip.internal-proxies)
+        String clientIp = request.getRemoteAddr();
+        for (HubSecurityProperties.Route route : routes) {
+            if (route.getPerIp() > 0) {
+                long retryAfter = rateLimiter.tryAcquire(
+                    "ip:" + route.getPath() + ":" + clientIp, route.getPerIp(), route.getWindow());
+                if (retryAfter > 0) {
+                    reject(request, response, route, "ip", retryAfter);
+                    return;
+                }
+            }
+            if (route.getPerEmail() > 0 && email != null) {
+                long retryAfter = rateLimiter.tryAcquire(
+                    "email:" + route.getPath() + ":" + email, route.getPerEmail(), route.getWindow());
+                if (retryAfter > 0) {
+                    reject(request, response, route, "email", retryAfter);
+                    return;
+                }
+            }
+        }
+        
+        filterChain.doFilter(effectiveRequest, response);
+    }
+    
+    private List<HubSecurityProperties.Route> matchingRoutes(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        return securityProperties.getRateLimit().getRoutes().stream()
+            .filter(route -> route.getMethods().isEmpty()
+                || route.getMethods().stream().anyMatch(method::equalsIgnoreCase))
+            .filter(route -> PATH_MATCHER.match(route.getPath(), path))
+            .toList();
+    }
+    
+    /**
+     * Email field of a JSON body, lower-cased; null if absent or not JSON
+     */
+    private String readEmail(CachedBodyHttpServletRequest request) {
+        if (request.getBody().length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(request.getBody()).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private void reject(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            HubSecurityProperties.Route route,
+            String scope,
+            long retryAfterSeconds) throws IOException {
+        
+        log.warn("Rate limit exceeded on {} ({} limit) from {}", route.getPath(), scope, request.getRemoteAddr());
+        meterRegistry.counter("hub.rate-limit.rejected", "route", route.getPath(), "scope", scope).increment();
+        
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS,
+            "Too many requests. Please retry in " + retryAfterSeconds + " seconds.");
+    }
+    
+    private void writeError(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            HttpStatus status,
+            String message) throws IOException {
+        
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getServletPath());
+        
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
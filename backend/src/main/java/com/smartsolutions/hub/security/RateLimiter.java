@@ -0,0 +1,152 @@
+package com.smartsolutions.hub.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate Limiter
+ * Two stages per key:
+ * 1. a local token bucket, guarded by striped locks, rejects bursts on this node without I/O
+ * 2. a Redis sliding window (current + previous fixed window, weighted) enforces the limit across nodes
+ * If Redis is unreachable, the local bucket alone applies, and Redis is not tried again for
+ * redisRetryDelay so requests do not each wait for a connection timeout.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+    
+    private static final String KEY_PREFIX = "hub:ratelimit:";
+    
+    /**
+     * Increment the current window and return the weighted estimate, in thousandths:
+     * previous * (remaining time of the current window / window) + current
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = RedisScript.of("""
+        local current = redis.call('INCR', KEYS[1])
+        if current == 1 then
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+        end
+        local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+        local window = tonumber(ARGV[3])
+        local remaining = window - tonumber(ARGV[2])
+        return math.floor(previous * remaining * 1000 / window) + current * 1000
+        """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final HubSecurityProperties securityProperties;
+    
+    private Cache<String, TokenBucket> buckets;
+    private Object[] stripes;
+    
+    private volatile long redisRetryAt;
+    
+    @PostConstruct
+    public void init() {
+        HubSecurityProperties.RateLimit config = securityProperties.getRateLimit();
+        Duration longestWindow = config.getRoutes().stream()
+            .map(HubSecurityProperties.Route::getWindow)
+            .max(Duration::compareTo)
+            .orElse(Duration.ofMinutes(1));
+        
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(config.getMaxTrackedKeys())
+            .expireAfterAccess(longestWindow.multipliedBy(2))
+            .build();
+        this.stripes = new Object[Math.max(1, config.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+    
+    /**
+     * Take one request from the key's allowance
+     * Returns 0 when allowed, otherwise the number of seconds to wait before retrying
+     */
+    public long tryAcquire(String key, int limit, Duration window) {
+        long localRetryAfter = tryAcquireLocal(key, limit, window);
+        if (localRetryAfter > 0) {
+            return localRetryAfter;
+        }
+        return tryAcquireShared(key, limit, window);
+    }
+    
+    private long tryAcquireLocal(String key, int limit, Duration window) {
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(limit));
+        synchronized (stripes[Math.floorMod(key.hashCode(), stripes.length)]) {
+            return bucket.tryConsume(limit, window);
+        }
+    }
+    
+    private long tryAcquireShared(String key, int limit, Duration window) {
+        long now = System.currentTimeMillis();
+        if (now < redisRetryAt) {
+            return 0;
+        }
+        long windowMillis = window.toMillis();
+        long windowIndex = now / windowMillis;
+        
+        long elapsed = now - windowIndex * windowMillis;
+        
+        try {
+            Long estimatedMillis = redisTemplate.execute(
+                SLIDING_WINDOW_SCRIPT,
+                List.of(KEY_PREFIX + key + ":" + windowIndex, KEY_PREFIX + key + ":" + (windowIndex - 1)),
+                Long.toString(windowMillis * 2),
+                Long.toString(elapsed),
+                Long.toString(windowMillis)
+            );
+            if (estimatedMillis == null || estimatedMillis <= limit * 1000L) {
+                return 0;
+            }
+            return Math.max(1, (windowMillis - elapsed + 999) / 1000);
+        } catch (Exception e) {
+            markRedisDown(e);
+            return 0;
+        }
+    }
+    
+    private void markRedisDown(Exception e) {
+        Duration retryDelay = securityProperties.getRateLimit().getRedisRetryDelay();
+        redisRetryAt = System.currentTimeMillis() + retryDelay.toMillis();
+        log.warn("Rate limit window unavailable in Redis, using local limits only for {}: {}", retryDelay, e.getMessage());
+    }
+    
+    /**
+     * Token bucket refilled continuously at limit/window; callers hold the key's stripe lock
+     */
+    private static class TokenBucket {
+        
+        private double tokens;
+        private long lastRefillNanos;
+        
+        TokenBucket(int capacity) {
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+        
+        long tryConsume(int capacity, Duration window) {
+            long now = System.nanoTime();
+            double refillPerNano = (double) capacity / window.toNanos();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+            
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            double nanosUntilToken = (1 - tokens) / refillPerNano;
+            return Math.max(1, (long) Math.ceil(nanosUntilToken / 1_000_000_000d));
+        }
+    }
+}
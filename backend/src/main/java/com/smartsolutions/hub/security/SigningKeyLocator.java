@@ -0,0 +1,41 @@
+package com.smartsolutions.hub.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+
+/**
+ * Signing Key Locator
+ * Picks the verification key from the JWS header, so each token is parsed and verified once:
+ * HS* tokens are our own (HMAC secret), anything else must match a kid in the JWKS keyset.
+ */
+public class SigningKeyLocator extends LocatorAdapter<Key> {
+    
+    private final SecretKey hmacKey;
+    private final JwksKeyStore jwksKeyStore;
+    
+    public SigningKeyLocator(SecretKey hmacKey, JwksKeyStore jwksKeyStore) {
+        this.hmacKey = hmacKey;
+        this.jwksKeyStore = jwksKeyStore;
+    }
+    
+    /**
+     * Whether a header designates a token signed with our own HMAC secret
+     */
+    public static boolean isHmac(JwsHeader header) {
+        String algorithm = header.getAlgorithm();
+        return algorithm != null && algorithm.startsWith("HS");
+    }
+    
+    @Override
+    protected Key locate(JwsHeader header) {
+        if (isHmac(header)) {
+            return hmacKey;
+        }
+        return jwksKeyStore.find(header.getKeyId())
+            .orElseThrow(() -> new UnsupportedJwtException("No signing key for kid " + header.getKeyId()));
+    }
+}
@@ -0,0 +1,171 @@
+package com.smartsolutions.hub.security;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Immutable set of site ids carried by the principal
+ * Small or dense id ranges are backed by a bitmap (O(1) contains), large sparse ids by a sorted array.
+ *
+ * Token claim encoding (shortest of the two is used):
+ *   r:1-40,52,60-75   ranges of consecutive ids
+ *   b:&lt;base64url&gt;     bitmap of ids
+ */
+public final class SiteSet {
+    
+    private static final SiteSet EMPTY = new SiteSet(new long[0]);
+    private static final String RANGES_PREFIX = "r:";
+    private static final String BITMAP_PREFIX = "b:";
+    private static final int MAX_DENSE_ID = 1 << 16;
+    
+    private final long[] ids;
+    private final BitSet bitmap;
+    
+    private SiteSet(long[] sortedUniqueIds) {
+        this.ids = sortedUniqueIds;
+        this.bitmap = isDense(sortedUniqueIds) ? toBitmap(sortedUniqueIds) : null;
+    }
+    
+    public static SiteSet empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Build a set from a list of ids (nulls and duplicates ignored)
+     */
+    public static SiteSet of(Collection<? extends Number> siteIds) {
+        if (siteIds == null || siteIds.isEmpty()) {
+            return EMPTY;
+        }
+        long[] sorted = siteIds.stream()
+            .filter(id -> id != null && id.longValue() >= 0)
+            .mapToLong(Number::longValue)
+            .sorted()
+            .distinct()
+            .toArray();
+        return sorted.length == 0 ? EMPTY : new SiteSet(sorted);
+    }
+    
+    /**
+     * Decode a compact token claim produced by {@link #encode()}
+     */
+    public static SiteSet decode(String encoded) {
+        if (encoded == null || encoded.length() <= 2) {
+            return EMPTY;
+        }
+        if (encoded.startsWith(BITMAP_PREFIX)) {
+            BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded.substring(BITMAP_PREFIX.length())));
+            return new SiteSet(bits.stream().asLongStream().toArray());
+        }
+        if (encoded.startsWith(RANGES_PREFIX)) {
+            LongStream.Builder builder = LongStream.builder();
+            for (String part : encoded.substring(RANGES_PREFIX.length()).split(",")) {
+                int dash = part.indexOf('-');
+                if (dash < 0) {
+                    builder.add(Long.parseLong(part));
+                } else {
+                    long from = Long.parseLong(part.substring(0, dash));
+                    long to = Long.parseLong(part.substring(dash + 1));
+                    for (long id = from; id <= to; id++) {
+                        builder.add(id);
+                    }
+                }
+            }
+            return new SiteSet(builder.build().sorted().distinct().toArray());
+        }
+        throw new IllegalArgumentException("Unknown site set encoding");
+    }
+    
+    /**
+     * Compact claim value: ranges or bitmap, whichever is shorter
+     */
+    public String encode() {
+        String ranges = encodeRanges();
+        if (ids.length == 0 || ids[ids.length - 1] >= MAX_DENSE_ID) {
+            return ranges;
+        }
+        String bitmapEncoding = BITMAP_PREFIX
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(toBitmap(ids).toByteArray());
+        return bitmapEncoding.length() < ranges.length() ? bitmapEncoding : ranges;
+    }
+    
+    public boolean contains(long siteId) {
+        if (bitmap != null) {
+            return siteId >= 0 && siteId < MAX_DENSE_ID && bitmap.get((int) siteId);
+        }
+        return Arrays.binarySearch(ids, siteId) >= 0;
+    }
+    
+    public int size() {
+        return ids.length;
+    }
+    
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+    
+    public LongStream stream() {
+        return Arrays.stream(ids);
+    }
+    
+    /**
+     * Boxed ids, for APIs and JSON responses that expect a list
+     */
+    @JsonValue
+    public List<Long> toList() {
+        return Arrays.stream(ids).boxed().toList();
+    }
+    
+    private String encodeRanges() {
+        StringBuilder result = new StringBuilder(RANGES_PREFIX);
+        int i = 0;
+        while (i < ids.length) {
+            int end = i;
+            while (end + 1 < ids.length && ids[end + 1] == ids[end] + 1) {
+                end++;
+            }
+            if (result.length() > RANGES_PREFIX.length()) {
+                result.append(',');
+            }
+            result.append(ids[i]);
+            if (end > i) {
+                result.append('-').append(ids[end]);
+            }
+            i = end + 1;
+        }
+        return result.toString();
+    }
+    
+    private static boolean isDense(long[] sortedIds) {
+        return sortedIds.length > 0 && sortedIds[sortedIds.length - 1] < MAX_DENSE_ID;
+    }
+    
+    private static BitSet toBitmap(long[] sortedIds) {
+        BitSet bits = new BitSet((int) sortedIds[sortedIds.length - 1] + 1);
+        for (long id : sortedIds) {
+            bits.set((int) id);
+        }
+        return bits;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SiteSet that && Arrays.equals(ids, that.ids);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+    
+    @Override
+    public String toString() {
+        return Arrays.toString(ids);
+    }
+}
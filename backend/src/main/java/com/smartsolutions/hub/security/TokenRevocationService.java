@@ -0,0 +1,208 @@
+package com.smartsolutions.hub.security;
+
+import com.smartsolutions.hub.config.JwtConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token Revocation Service
+ * Revoked token ids (jti) and per-user revocation epochs are stored in Redis and mirrored
+ * in memory, so JwtAuthenticationFilter checks revocation with two hash lookups and no network hop.
+ * Other nodes are updated through a Redis pub/sub channel.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+    
+    private static final String CHANNEL = "hub:revocation:events";
+    private static final String REVOKED_TOKENS_KEY = "hub:revocation:jti";
+    private static final String USER_EPOCHS_KEY = "hub:revocation:user-epochs";
+    private static final String USED_REFRESH_TOKEN_PREFIX = "hub:revocation:refresh:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final JwtConfig jwtConfig;
+    
+    /**
+     * jti -> token expiration (epoch millis); entries are dropped once the token expires anyway
+     */
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    
+    /**
+     * user id -> revocation time (epoch millis); tokens issued before it are rejected
+     */
+    private final ConcurrentHashMap<Long, Long> userEpochs = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        loadFromRedis();
+    }
+    
+    /**
+     * Whether an access token has been revoked (constant time, memory only)
+     */
+    public boolean isRevoked(ParsedAccessToken token) {
+        return isRevoked(token.tokenId(), token.userId(), token.issuedAt());
+    }
+    
+    /**
+     * Whether a refresh token has been revoked (constant time, memory only)
+     */
+    public boolean isRevoked(ParsedRefreshToken token) {
+        return isRevoked(token.tokenId(), token.userId(), token.issuedAt());
+    }
+    
+    private boolean isRevoked(String tokenId, Long userId, Instant issuedAt) {
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (userId != null && issuedAt != null) {
+            Long epoch = userEpochs.get(userId);
+            return epoch != null && issuedAt.toEpochMilli() < epoch;
+        }
+        return false;
+    }
+    
+    /**
+     * Mark a refresh token as used, atomically across nodes (SET NX with the token's remaining
+     * lifetime). False when it was already used: the caller must treat it as a reuse.
+     * Without Redis, the claim is only atomic on this node.
+     */
+    public boolean claimRefreshToken(ParsedRefreshToken token) {
+        Duration ttl = Duration.between(Instant.now(), token.expiresAt());
+        if (token.tokenId() == null || ttl.isNegative() || ttl.isZero()) {
+            return false;
+        }
+        try {
+            Boolean claimed = redisTemplate.opsForValue()
+                .setIfAbsent(USED_REFRESH_TOKEN_PREFIX + token.tokenId(), "1", ttl);
+            return Boolean.TRUE.equals(claimed);
+        } catch (Exception e) {
+            log.warn("Could not claim refresh token in Redis, claiming locally only: {}", e.getMessage());
+            return revokedTokens.putIfAbsent(token.tokenId(), token.expiresAt().toEpochMilli()) == null;
+        }
+    }
+    
+    /**
+     * Revoke a single token until it expires
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || expiresAt.isBefore(Instant.now())) {
+            return;
+        }
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        revokedTokens.put(tokenId, expiresAtMillis);
+        
+        try {
+            redisTemplate.opsForZSet().add(REVOKED_TOKENS_KEY, tokenId, expiresAtMillis);
+            redisTemplate.convertAndSend(CHANNEL, "jti|" + tokenId + "|" + expiresAtMillis);
+        } catch (Exception e) {
+            log.warn("Could not propagate token revocation to Redis: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Revoke every token issued to a user so far (logout everywhere, lock, password reset)
+     */
+    public void revokeAllForUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        // Compared with the exact issue time (iatMs claim): tokens issued from now on stay valid
+        long epoch = System.currentTimeMillis();
+        userEpochs.merge(userId, epoch, Math::max);
+        
+        try {
+            redisTemplate.opsForHash().put(USER_EPOCHS_KEY, userId.toString(), Long.toString(epoch));
+            redisTemplate.convertAndSend(CHANNEL, "user|" + userId + "|" + epoch);
+        } catch (Exception e) {
+            log.warn("Could not propagate user revocation to Redis: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Apply revocations published by any node (including this one)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 3) {
+            return;
+        }
+        try {
+            switch (parts[0]) {
+                case "jti" -> revokedTokens.put(parts[1], Long.parseLong(parts[2]));
+                case "user" -> userEpochs.merge(Long.parseLong(parts[1]), Long.parseLong(parts[2]), Math::max);
+                default -> log.debug("Ignoring revocation event: {}", parts[0]);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Malformed revocation event ignored");
+        }
+    }
+    
+    /**
+     * Drop entries for tokens that have expired on their own
+     */
+    @Scheduled(fixedDelayString = "${hub.security.revocation.cleanup-interval-ms:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        
+        // No token issued before this can still be valid
+        long oldestValidIssue = now - Math.max(jwtConfig.getExpiration(), jwtConfig.getRefreshExpiration());
+        userEpochs.values().removeIf(epoch -> epoch < oldestValidIssue);
+        
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(REVOKED_TOKENS_KEY, Double.NEGATIVE_INFINITY, now);
+            Object[] staleUsers = redisTemplate.opsForHash().entries(USER_EPOCHS_KEY).entrySet().stream()
+                .filter(entry -> Long.parseLong(entry.getValue().toString()) < oldestValidIssue)
+                .map(Map.Entry::getKey)
+                .toArray();
+            if (staleUsers.length > 0) {
+                redisTemplate.opsForHash().delete(USER_EPOCHS_KEY, staleUsers);
+            }
+        } catch (Exception e) {
+            log.debug("Could not purge expired revocations in Redis: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Load the current revocation state at startup
+     */
+    private void loadFromRedis() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> tokens =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(REVOKED_TOKENS_KEY, now, Double.POSITIVE_INFINITY);
+            if (tokens != null) {
+                tokens.forEach(tuple -> revokedTokens.put(tuple.getValue(), tuple.getScore().longValue()));
+            }
+            
+            Map<Object, Object> epochs = redisTemplate.opsForHash().entries(USER_EPOCHS_KEY);
+            epochs.forEach((userId, epoch) ->
+                userEpochs.put(Long.parseLong(userId.toString()), Long.parseLong(epoch.toString())));
+            
+            log.info("Loaded {} revoked tokens and {} user revocations", revokedTokens.size(), userEpochs.size());
+        } catch (Exception e) {
+            log.warn("Could not load token revocations from Redis, starting empty: {}", e.getMessage());
+        }
+    }
+}
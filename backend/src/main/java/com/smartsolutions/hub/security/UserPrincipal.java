@@ -1,5 +1,6 @@
 package com.smartsolutions.hub.security;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,9 +13,37 @@ public record UserPrincipal(
     String email,
     String name,
     String role,
-    List<Long> siteIds
+    @JsonProperty("siteIds") SiteSet sites
 ) implements UserDetails {
     
+    public UserPrincipal {
+        sites = sites != null ? sites : SiteSet.empty();
+    }
+    
+    public UserPrincipal(Long id, String email, String name, String role, List<Long> siteIds) {
+        this(id, email, name, role, SiteSet.of(siteIds));
+    }
+    
+    /**
+     * Build the principal from a verified access token
+     */
+    public static UserPrincipal from(ParsedAccessToken token) {
+        return new UserPrincipal(
+            token.userId(),
+            token.email(),
+            token.name(),
+            token.role(),
+            token.sites()
+        );
+    }
+    
+    /**
+     * Site ids as a list, for APIs that expect one (use sites().contains for membership checks)
+     */
+    public List<Long> siteIds() {
+        return sites.toList();
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
@@ -0,0 +1,128 @@
+package com.smartsolutions.hub.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.smartsolutions.hub.config.JwtConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Verified Token Cache
+ * Keeps already verified access tokens in memory, keyed by a SHA-256 digest of the token,
+ * so repeated requests with the same token skip signature verification and JSON parsing.
+ * Each entry expires at the token's own exp claim.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VerifiedTokenCache {
+    
+    private final JwtConfig jwtConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private Cache<String, ParsedAccessToken> cache;
+    
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            log.info("Verified token cache disabled");
+            return;
+        }
+        
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(jwtConfig.getCache().getMaxSize())
+            .expireAfter(new TokenExpiry())
+            // Evict promptly at exp instead of waiting for the next cache access
+            .scheduler(Scheduler.systemScheduler())
+            .recordStats()
+            .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        log.info("Verified token cache enabled (max size: {})", jwtConfig.getCache().getMaxSize());
+    }
+    
+    public boolean isEnabled() {
+        return jwtConfig.getCache().isEnabled();
+    }
+    
+    /**
+     * Get a previously verified token, if still valid
+     */
+    public Optional<ParsedAccessToken> get(String token) {
+        if (cache == null) {
+            return Optional.empty();
+        }
+        ParsedAccessToken parsed = cache.getIfPresent(digest(token));
+        if (parsed == null || !parsed.expiresAt().isAfter(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(parsed);
+    }
+    
+    /**
+     * Store a token that has just been verified
+     */
+    public void put(String token, ParsedAccessToken parsed) {
+        if (cache != null) {
+            cache.put(digest(token), parsed);
+        }
+    }
+    
+    /**
+     * Drop a token from the cache (e.g. on revocation)
+     */
+    public void invalidate(String token) {
+        if (cache != null) {
+            cache.invalidate(digest(token));
+        }
+    }
+    
+    /**
+     * SHA-256 digest of the raw token, so the cache never holds bearer credentials
+     */
+    private String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Expire each entry exactly at the token's expiration
+     */
+    private static class TokenExpiry implements Expiry<String, ParsedAccessToken> {
+        
+        @Override
+        public long expireAfterCreate(String key, ParsedAccessToken value, long currentTime) {
+            Duration remaining = Duration.between(Instant.now(), value.expiresAt());
+            return Math.max(0, remaining.toNanos());
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, ParsedAccessToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, ParsedAccessToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
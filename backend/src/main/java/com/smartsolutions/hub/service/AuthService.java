@@ -7,13 +7,18 @@ import com.smartsolutions.hub.exception.ResourceNotFoundException;
 import com.smartsolutions.hub.exception.UnauthorizedException;
 import com.smartsolutions.hub.model.User;
 import com.smartsolutions.hub.repository.UserRepository;
+import com.smartsolutions.hub.security.LoginAttemptStore;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.ParsedRefreshToken;
+import com.smartsolutions.hub.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,7 +34,12 @@ public class AuthService {
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final JwtConfig jwtConfig;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserService userService;
+    private final LoginAttemptStore loginAttemptStore;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final TokenRevocationService tokenRevocationService;
+    private final TransactionTemplate transactionTemplate;
     
     private static final int MAX_FAILED_ATTEMPTS = 5;
     private static final int ACCOUNT_LOCK_DURATION_MINUTES = 30;
@@ -57,7 +67,7 @@ public class AuthService {
         user.setEmail(request.getEmail());
         user.setName(request.getName());
         user.setRole(request.getRole());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
         user.setPreferredLanguage(request.getPreferredLanguage());
         user.setNotificationEnabled(true);
         user.setAccountNonLocked(true);
@@ -73,8 +83,9 @@ public class AuthService {
     
     /**
      * Login with email and password
+     * The password is checked before any transaction starts, so a login waiting for the hashing
+     * pool holds no database connection; only the outcome is written, in a short transaction
      */
-    @Transactional
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for user: {}", request.getEmail());
         
@@ -88,24 +99,53 @@ public class AuthService {
         }
         
         // Validate password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        String verifiedHash = user.getPasswordHash();
+        if (!passwordHashingService.matches(request.getPassword(), verifiedHash)) {
             handleFailedLoginAttempt(user);
             throw new UnauthorizedException("Invalid email or password");
         }
         
+        // Upgrade the stored hash if it uses an old format or a cost below the target
+        String upgradedHash = passwordHashingService.rehashIfNeeded(request.getPassword(), verifiedHash);
+        
+        return transactionTemplate.execute(status ->
+            completeLogin(user.getId(), verifiedHash, upgradedHash, request.getRememberMe()));
+    }
+    
+    /**
+     * Write a successful login: re-read the user, since the password check ran outside the transaction
+     */
+    private AuthResponse completeLogin(Long userId, String verifiedHash, String upgradedHash, Boolean rememberMe) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new UnauthorizedException("Invalid email or password"));
+        
+        // Locked or password changed while the hash was being checked
+        if (!user.getAccountNonLocked()) {
+            throw new UnauthorizedException("Account is locked. Please try again later or reset your password.");
+        }
+        if (!verifiedHash.equals(user.getPasswordHash())) {
+            throw new UnauthorizedException("Invalid email or password");
+        }
+        
+        if (!upgradedHash.equals(verifiedHash)) {
+            user.setPasswordHash(upgradedHash);
+            log.info("Password hash upgraded for user: {}", user.getEmail());
+        }
+        
         // Reset failed attempts on successful login
-        if (user.getFailedLoginAttempts() > 0) {
+        // (only a counter persisted before write-behind bookkeeping needs a write)
+        loginAttemptStore.reset(user.getEmail());
+        if (user.getFailedLoginAttempts() != null && user.getFailedLoginAttempts() > 0) {
             user.setFailedLoginAttempts(0);
         }
         
-        // Update last login timestamp
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // Last login timestamp is written in the next batch flush
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
         
         log.info("User logged in successfully: {}", user.getEmail());
         
         // Generate tokens and return response
-        return generateAuthResponse(user, request.getRememberMe());
+        return generateAuthResponse(user, rememberMe);
     }
     
     /**
@@ -115,24 +155,21 @@ public class AuthService {
     public AuthResponse mockSSOLogin(MockSSORequest request) {
         log.info("Mock SSO login for user: {}", request.getEmail());
         
-        // Find or create user
+        // Find or create user (SSO users have no password)
         User user = userRepository.findByEmail(request.getEmail())
             .orElseGet(() -> {
-                // Create new user for SSO (no password)
-                User newUser = new User();
-                newUser.setEmail(request.getEmail());
-                newUser.setName(extractNameFromEmail(request.getEmail()));
-                newUser.setRole("operationnel");
-                newUser.setAccountNonLocked(true);
-                newUser.setFailedLoginAttempts(0);
-                newUser.setPreferredLanguage("fr");
-                newUser.setNotificationEnabled(true);
-                return userRepository.save(newUser);
+                Long userId = userService.provisionUser(
+                    request.getEmail(),
+                    extractNameFromEmail(request.getEmail()),
+                    "operationnel",
+                    List.of()
+                );
+                return userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
             });
         
-        // Update last login
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // Last login timestamp is written in the next batch flush
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
         
         log.info("Mock SSO login successful: {}", user.getEmail());
         
@@ -141,20 +178,32 @@ public class AuthService {
     
     /**
      * Refresh access token using refresh token
+     * The refresh token is rotated: the presented one is revoked and a new pair is issued
      */
     public AuthResponse refreshToken(RefreshTokenRequest request) {
-        String refreshToken = request.getRefreshToken();
+        ParsedRefreshToken refreshToken = jwtService.parseRefreshToken(request.getRefreshToken())
+            .orElseThrow(() -> new UnauthorizedException("Invalid or expired refresh token"));
         
-        // Validate refresh token
-        if (!jwtService.validateRefreshToken(refreshToken)) {
+        if (tokenRevocationService.isRevoked(refreshToken)) {
+            // A rotated refresh token was used again: assume it was stolen and revoke the whole family
+            log.warn("Revoked refresh token reused for user: {}", refreshToken.email());
+            tokenRevocationService.revokeAllForUser(refreshToken.userId());
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+        
+        // Atomic claim: of two concurrent refreshes with the same token (on any node), one loses
+        // and is handled as a reuse
+        if (!tokenRevocationService.claimRefreshToken(refreshToken)) {
+            log.warn("Refresh token used twice for user: {}", refreshToken.email());
+            tokenRevocationService.revokeAllForUser(refreshToken.userId());
             throw new UnauthorizedException("Invalid or expired refresh token");
         }
         
         // Extract user email from token
-        String email = jwtService.extractEmail(refreshToken);
+        String email = refreshToken.email();
         
-        // Find user
-        User user = userRepository.findByEmail(email)
+        // Find user, with its sites for the new access token
+        User user = userRepository.findWithSiteIdsByEmail(email)
             .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
         // Check if account is locked
@@ -162,12 +211,42 @@ public class AuthService {
             throw new UnauthorizedException("Account is locked");
         }
         
+        tokenRevocationService.revokeToken(refreshToken.tokenId(), refreshToken.expiresAt());
+        
         log.info("Token refreshed for user: {}", email);
         
         // Generate new tokens
         return generateAuthResponse(user, false);
     }
     
+    /**
+     * Logout: revoke the access token and, if given, the refresh token
+     */
+    public void logout(String accessToken, LogoutRequest request) {
+        Long userId = null;
+        
+        if (accessToken != null) {
+            Optional<ParsedAccessToken> parsed = jwtService.parseAccessToken(accessToken);
+            if (parsed.isPresent()) {
+                userId = parsed.get().userId();
+                tokenRevocationService.revokeToken(parsed.get().tokenId(), parsed.get().expiresAt());
+                jwtService.evictVerified(accessToken);
+            }
+        }
+        
+        if (request != null && request.getRefreshToken() != null) {
+            Optional<ParsedRefreshToken> parsed = jwtService.parseRefreshToken(request.getRefreshToken());
+            if (parsed.isPresent()) {
+                userId = parsed.get().userId();
+                tokenRevocationService.revokeToken(parsed.get().tokenId(), parsed.get().expiresAt());
+            }
+        }
+        
+        if (request != null && Boolean.TRUE.equals(request.getAllDevices())) {
+            tokenRevocationService.revokeAllForUser(userId);
+        }
+    }
+    
     /**
      * Request password reset
      */
@@ -223,7 +302,7 @@ public class AuthService {
         }
         
         // Update password
-        user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
+        user.setPasswordHash(passwordHashingService.encode(request.getNewPassword()));
         user.setPasswordResetToken(null);
         user.setPasswordResetExpiresAt(null);
         user.setFailedLoginAttempts(0);
@@ -231,22 +310,26 @@ public class AuthService {
         
         userRepository.save(user);
         
+        // Sessions opened with the old password are no longer valid
+        tokenRevocationService.revokeAllForUser(user.getId());
+        
         log.info("Password reset successful for user: {}", user.getEmail());
     }
     
     /**
      * Handle failed login attempt
+     * Failures are counted in Redis; only the lock transition is written,
+     * in its own short transaction (no connection is held during the password check)
      */
     private void handleFailedLoginAttempt(User user) {
-        int attempts = user.getFailedLoginAttempts() + 1;
-        user.setFailedLoginAttempts(attempts);
+        int attempts = loginAttemptStore.recordFailure(user.getEmail());
         
         if (attempts >= MAX_FAILED_ATTEMPTS) {
-            user.setAccountNonLocked(false);
+            transactionTemplate.executeWithoutResult(status -> userRepository.lockAccount(user.getId(), attempts));
+            loginAttemptStore.reset(user.getEmail());
+            tokenRevocationService.revokeAllForUser(user.getId());
             log.warn("Account locked due to too many failed attempts: {}", user.getEmail());
         }
-        
-        userRepository.save(user);
     }
     
     /**
@@ -271,7 +354,7 @@ public class AuthService {
                 .email(user.getEmail())
                 .name(user.getName())
                 .role(user.getRole())
-                .siteIds(user.getSiteIds())
+                .siteIds(List.copyOf(user.getSiteIds()))
                 .preferredLanguage(user.getPreferredLanguage())
                 .notificationEnabled(user.getNotificationEnabled())
                 .build())
@@ -1,9 +1,12 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.config.CacheConfig;
 import com.smartsolutions.hub.dto.DashboardConfigDTO;
 import com.smartsolutions.hub.model.DashboardConfig;
 import com.smartsolutions.hub.repository.DashboardConfigRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +33,8 @@ public class DashboardService {
         return AVAILABLE_DASHBOARDS;
     }
     
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.DASHBOARDS, key = "#userId")
     public DashboardConfigDTO getUserDashboardConfig(Long userId) {
         DashboardConfig config = dashboardConfigRepository.findByUserId(userId)
             .orElseGet(() -> {
@@ -43,6 +48,7 @@ public class DashboardService {
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.DASHBOARDS, key = "#userId")
     public DashboardConfigDTO saveDashboardConfig(Long userId, List<String> dashboardIds) {
         DashboardConfig config = dashboardConfigRepository.findByUserId(userId)
             .orElseGet(() -> {
@@ -60,7 +66,7 @@ public class DashboardService {
         return new DashboardConfigDTO(
             config.getId(),
             config.getUserId(),
-            config.getDashboardIds()
+            List.copyOf(config.getDashboardIds())
         );
     }
 }
@@ -1,8 +1,18 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.config.HubSecurityProperties;
 import com.smartsolutions.hub.config.JwtConfig;
 import com.smartsolutions.hub.model.User;
+import com.smartsolutions.hub.security.JwksKeyStore;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.ParsedRefreshToken;
+import com.smartsolutions.hub.security.SigningKeyLocator;
+import com.smartsolutions.hub.security.SiteSet;
+import com.smartsolutions.hub.security.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -12,9 +22,14 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -25,8 +40,15 @@ import java.util.function.Function;
 @Slf4j
 public class JwtService {
     
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iatMs";
+    
     private final JwtConfig jwtConfig;
+    private final HubSecurityProperties securityProperties;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwksKeyStore jwksKeyStore;
     private SecretKey secretKey;
+    private JwtParser jwtParser;
+    private JwtParser accessTokenParser;
     
     @PostConstruct
     public void init() {
@@ -34,6 +56,14 @@ public class JwtService {
         this.secretKey = Keys.hmacShaKeyFor(
             jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8)
         );
+        // Parsers are immutable and thread-safe, build it once
+        this.jwtParser = Jwts.parser()
+            .verifyWith(secretKey)
+            .build();
+        // Access tokens may also come from Azure AD: the key is chosen from the header (alg/kid)
+        this.accessTokenParser = Jwts.parser()
+            .keyLocator(new SigningKeyLocator(secretKey, jwksKeyStore))
+            .build();
     }
     
     /**
@@ -45,7 +75,10 @@ public class JwtService {
         claims.put("email", user.getEmail());
         claims.put("name", user.getName());
         claims.put("role", user.getRole());
-        claims.put("siteIds", user.getSiteIds());
+        // Compact range/bitmap encoding keeps the header small for users with many sites
+        claims.put("sites", SiteSet.of(user.getSiteIds()).encode());
+        // Authorization version: the token is rejected once role or sites change
+        claims.put("av", user.getAuthzVersion() != null ? user.getAuthzVersion() : 0);
         claims.put("type", "access");
         
         return generateToken(claims, user.getEmail(), jwtConfig.getExpiration());
@@ -72,8 +105,11 @@ public class JwtService {
         
         return Jwts.builder()
             .claims(claims)
+            // iat has second precision; revocation epochs compare against the exact issue time
+            .claim(ISSUED_AT_MILLIS_CLAIM, now.getTime())
             .subject(subject)
             .issuer(jwtConfig.getIssuer())
+            .id(UUID.randomUUID().toString())
             .issuedAt(now)
             .expiration(expiryDate)
             .signWith(secretKey)
@@ -111,17 +147,8 @@ public class JwtService {
     /**
      * Extract site IDs from token
      */
-    @SuppressWarnings("unchecked")
-    public java.util.List<Long> extractSiteIds(String token) {
-        return extractClaim(token, claims -> {
-            Object siteIds = claims.get("siteIds");
-            if (siteIds instanceof java.util.List) {
-                return ((java.util.List<?>) siteIds).stream()
-                    .map(id -> id instanceof Integer ? ((Integer) id).longValue() : (Long) id)
-                    .toList();
-            }
-            return java.util.Collections.emptyList();
-        });
+    public List<Long> extractSiteIds(String token) {
+        return extractClaim(token, this::readSites).toList();
     }
     
     /**
@@ -148,15 +175,166 @@ public class JwtService {
     
     /**
      * Extract all claims from token
+     * Signature and expiration are both checked by the parser
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-            .verifyWith(secretKey)
-            .build()
+        return jwtParser
             .parseSignedClaims(token)
             .getPayload();
     }
     
+    /**
+     * Verify an access token once and return its typed claims
+     * Our own tokens (HMAC) and Azure AD tokens (JWKS) go through the same single parse
+     * Empty if the token is invalid, expired or without exp, not an access token or from an unexpected issuer
+     * Tokens already verified are served from VerifiedTokenCache when enabled
+     */
+    public Optional<ParsedAccessToken> parseAccessToken(String token) {
+        Optional<ParsedAccessToken> cached = verifiedTokenCache.get(token);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
+        try {
+            Jws<Claims> jws = accessTokenParser.parseSignedClaims(token);
+            // exp is optional for the parser; a token without it would never expire
+            if (jws.getPayload().getExpiration() == null) {
+                log.debug("Rejected access token without expiration");
+                return Optional.empty();
+            }
+            Optional<ParsedAccessToken> parsed = SigningKeyLocator.isHmac(jws.getHeader())
+                ? toLocalAccessToken(jws.getPayload())
+                : toAzureAccessToken(jws.getPayload());
+            parsed.ifPresent(value -> verifiedTokenCache.put(token, value));
+            return parsed;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected access token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Drop a revoked access token from the verified token cache
+     * Other nodes keep their entry until exp; the revocation check rejects it there
+     */
+    public void evictVerified(String token) {
+        verifiedTokenCache.invalidate(token);
+    }
+    
+    /**
+     * Claims of a token we issued ourselves
+     */
+    private Optional<ParsedAccessToken> toLocalAccessToken(Claims claims) {
+        if (!"access".equals(claims.get("type", String.class))) {
+            return Optional.empty();
+        }
+        return Optional.of(toParsedAccessToken(claims));
+    }
+    
+    /**
+     * Claims of an Azure AD token: issuer and audience must match the configuration
+     * The user id is resolved later from the email (see UserService.resolveUserId)
+     */
+    private Optional<ParsedAccessToken> toAzureAccessToken(Claims claims) {
+        HubSecurityProperties.Azure azure = securityProperties.getAzure();
+        if (!Objects.equals(azure.getIssuer(), claims.getIssuer())
+                || claims.getAudience() == null
+                || !claims.getAudience().contains(azure.getAudience())) {
+            log.debug("Rejected Azure AD token: unexpected issuer or audience");
+            return Optional.empty();
+        }
+        
+        String email = claims.get(azure.getEmailClaim(), String.class);
+        if (email == null) {
+            email = claims.get("email", String.class);
+        }
+        List<?> roles = claims.get("roles", List.class);
+        return Optional.of(new ParsedAccessToken(
+            null,
+            email,
+            claims.get("name", String.class),
+            roles != null && !roles.isEmpty() ? roles.get(0).toString() : null,
+            SiteSet.empty(),
+            0,
+            claims.getId() != null ? claims.getId() : claims.get("uti", String.class),
+            toInstant(claims.getIssuedAt()),
+            claims.getExpiration().toInstant()
+        ));
+    }
+    
+    /**
+     * Map verified claims to a ParsedAccessToken
+     */
+    private ParsedAccessToken toParsedAccessToken(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        Number authzVersion = claims.get("av", Number.class);
+        return new ParsedAccessToken(
+            userId != null ? userId.longValue() : null,
+            claims.getSubject(),
+            claims.get("name", String.class),
+            claims.get("role", String.class),
+            readSites(claims),
+            authzVersion != null ? authzVersion.intValue() : 0,
+            claims.getId(),
+            issuedAt(claims),
+            claims.getExpiration().toInstant()
+        );
+    }
+    
+    /**
+     * Verify a refresh token and return its claims
+     * Empty if the token is invalid, expired or not a refresh token
+     */
+    public Optional<ParsedRefreshToken> parseRefreshToken(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            if (!"refresh".equals(claims.get("type", String.class))) {
+                return Optional.empty();
+            }
+            Number userId = claims.get("userId", Number.class);
+            return Optional.of(new ParsedRefreshToken(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                claims.getId(),
+                issuedAt(claims),
+                claims.getExpiration().toInstant()
+            ));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected refresh token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+    
+    /**
+     * Exact issue time of our own tokens; iat (whole seconds) for tokens issued before iatMs existed
+     */
+    private Instant issuedAt(Claims claims) {
+        Number millis = claims.get(ISSUED_AT_MILLIS_CLAIM, Number.class);
+        return millis != null ? Instant.ofEpochMilli(millis.longValue()) : toInstant(claims.getIssuedAt());
+    }
+    
+    /**
+     * Read the site ids: compact "sites" claim, or the legacy "siteIds" JSON array
+     * (JSON numbers may be decoded as Integer or Long)
+     */
+    private SiteSet readSites(Claims claims) {
+        String sites = claims.get("sites", String.class);
+        if (sites != null) {
+            return SiteSet.decode(sites);
+        }
+        Object siteIds = claims.get("siteIds");
+        if (siteIds instanceof List<?> list) {
+            return SiteSet.of(list.stream()
+                .map(id -> ((Number) id).longValue())
+                .toList());
+        }
+        return SiteSet.empty();
+    }
+    
     /**
      * Check if token is expired
      */
@@ -186,8 +364,8 @@ public class JwtService {
      */
     public Boolean validateAccessToken(String token) {
         try {
-            String tokenType = extractTokenType(token);
-            return "access".equals(tokenType) && !isTokenExpired(token);
+            // Expired tokens are rejected by the parser, no second parse needed
+            return "access".equals(extractTokenType(token));
         } catch (Exception e) {
             log.error("Error validating access token: {}", e.getMessage());
             return false;
@@ -199,8 +377,7 @@ public class JwtService {
      */
     public Boolean validateRefreshToken(String token) {
         try {
-            String tokenType = extractTokenType(token);
-            return "refresh".equals(tokenType) && !isTokenExpired(token);
+            return "refresh".equals(extractTokenType(token));
         } catch (Exception e) {
             log.error("Error validating refresh token: {}", e.getMessage());
             return false;
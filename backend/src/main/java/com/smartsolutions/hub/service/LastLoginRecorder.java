@@ -0,0 +1,82 @@
+package com.smartsolutions.hub.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last Login Recorder
+ * Buffers users.last_login_at updates in memory and writes them in periodic batches,
+ * so logins do not each take a row lock on the users table
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LastLoginRecorder {
+    
+    private static final String UPDATE_LAST_LOGIN = """
+        UPDATE users SET last_login_at = ?
+        WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Latest pending login time per user id
+     */
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * Record a login; it is written on the next flush
+     */
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+    
+    /**
+     * Write all pending login times in one JDBC batch
+     */
+    @Scheduled(fixedDelayString = "${hub.security.last-login.flush-interval-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            // Only drain the value we are about to write; newer logins stay pending
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                Timestamp loginAt = Timestamp.valueOf(entry.getValue());
+                batch.add(new Object[] { loginAt, entry.getKey(), loginAt });
+            }
+        }
+        
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, batch);
+            log.debug("Flushed last login time for {} users", batch.size());
+        } catch (Exception e) {
+            log.warn("Could not flush last login times for {} users: {}", batch.size(), e.getMessage());
+            // Keep them for the next flush
+            batch.forEach(row -> record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime()));
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
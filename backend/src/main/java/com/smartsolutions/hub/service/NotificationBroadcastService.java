@@ -0,0 +1,115 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.CacheConfig;
+import com.smartsolutions.hub.config.TwoTierCacheManager;
+import com.smartsolutions.hub.dto.BroadcastNotificationRequest;
+import com.smartsolutions.hub.dto.BroadcastNotificationResult;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import com.smartsolutions.hub.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Notification Broadcast Service
+ * Sends one notification to every user of a site or of a role with a single INSERT ... SELECT:
+ * the rows are created by the database in one statement (one counter trigger run), and the new
+ * ids come back through RETURNING. No recipient list travels through the application first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationBroadcastService {
+    
+    private static final String INSERT_COLUMNS = """
+        INSERT INTO notifications (user_id, title, message, type, priority, is_read, action_url, created_at)
+        """;
+    
+    private static final String BROADCAST_TO_SITE = INSERT_COLUMNS + """
+        SELECT us.user_id, ?, ?, ?, ?, false, ?, ?
+        FROM user_sites us
+        WHERE us.site_id = ?
+        RETURNING user_id, id
+        """;
+    
+    private static final String BROADCAST_TO_ROLE = INSERT_COLUMNS + """
+        SELECT u.id, ?, ?, ?, ?, false, ?, ?
+        FROM users u
+        WHERE u.role = ?
+        RETURNING user_id, id
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SiteService siteService;
+    private final NotificationStreamService notificationStreamService;
+    private final TwoTierCacheManager cacheManager;
+    
+    @Transactional
+    public BroadcastNotificationResult broadcast(BroadcastNotificationRequest request) {
+        if ((request.siteId() == null) == (request.role() == null)) {
+            throw new BadRequestException("Exactly one of siteId or role must be set");
+        }
+        
+        String sql;
+        Object target;
+        if (request.siteId() != null) {
+            siteService.getSiteById(request.siteId()); // 404 for an unknown site
+            sql = BROADCAST_TO_SITE;
+            target = request.siteId();
+        } else {
+            sql = BROADCAST_TO_ROLE;
+            target = request.role();
+        }
+        
+        // Same instant for every copy; written as UTC like the JPA path (hibernate.jdbc.time_zone)
+        Instant createdAt = Instant.now();
+        Map<Long, Long> notificationIds = new HashMap<>();
+        RowCallbackHandler collectIds = rs -> {
+            notificationIds.put(rs.getLong("user_id"), rs.getLong("id"));
+        };
+        jdbcTemplate.query(sql, collectIds,
+            request.title(),
+            request.message(),
+            request.type(),
+            request.priority(),
+            request.actionUrl(),
+            LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC),
+            target);
+        
+        if (!notificationIds.isEmpty()) {
+            evictUnreadCounts(notificationIds);
+            notificationStreamService.publishBroadcast(new NotificationDTO(
+                null,
+                request.title(),
+                request.message(),
+                request.type(),
+                request.priority(),
+                false,
+                request.actionUrl(),
+                createdAt,
+                1,
+                createdAt
+            ), notificationIds);
+        }
+        
+        log.info("Broadcast '{}' to {} users ({})", request.title(), notificationIds.size(),
+            request.siteId() != null ? "site " + request.siteId() : "role " + request.role());
+        return new BroadcastNotificationResult(notificationIds.size());
+    }
+    
+    /**
+     * Only the recipients' counts, with multi-key deletes; applied after commit
+     */
+    private void evictUnreadCounts(Map<Long, Long> notificationIds) {
+        cacheManager.evictAll(CacheConfig.UNREAD_COUNTS, notificationIds.keySet());
+    }
+}
@@ -0,0 +1,161 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notification Coalescer
+ * Folds repeats into the latest unread notification with the same (user, type, dedupe key)
+ * created within the coalescing window: occurrences is bumped and the text refreshed. The row
+ * stays unread, so the unread counter does not move. Items without a dedupe key are never coalesced.
+ * Each key is serialized with a transaction-scoped advisory lock, so two batches carrying the
+ * same key cannot both miss and insert a duplicate; a whole batch is resolved with one UPDATE.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationCoalescer {
+    
+    /**
+     * First half of the two-int advisory lock key, kept apart from the single-bigint maintenance lock
+     */
+    private static final int LOCK_SPACE = 0x434F414C;
+    private static final int CHUNK_SIZE = 1000;
+    
+    // Locks taken in hash order: concurrent batches sharing keys cannot deadlock
+    private static final String LOCK = """
+        SELECT pg_advisory_xact_lock(?, h)
+        FROM (SELECT DISTINCT hashtext(k) AS h FROM (VALUES %s) AS v(k) ORDER BY h) sorted
+        """;
+    
+    // created_at >= ? on the outer statement as well, so only recent partitions are touched
+    private static final String COALESCE = """
+        UPDATE notifications n
+        SET occurrences = n.occurrences + v.repeats, last_occurred_at = ?, title = v.title, message = v.message
+        FROM (VALUES %s) AS v(user_id, type, dedupe_key, repeats, title, message)
+        WHERE n.created_at >= ? AND n.id = (
+            SELECT id FROM notifications
+            WHERE user_id = v.user_id AND type = v.type AND dedupe_key = v.dedupe_key
+              AND NOT is_read AND created_at >= ?
+            ORDER BY created_at DESC
+            LIMIT 1
+        )
+        RETURNING n.id, n.title, n.message, n.type, n.priority, n.is_read, n.action_url,
+                  n.created_at, n.occurrences, n.last_occurred_at, n.user_id, n.dedupe_key
+        """;
+    
+    private static final String VALUES_ROW = "(?::bigint, ?::varchar, ?::varchar, ?::int, ?::varchar, ?::text)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${hub.notifications.coalescing.window:10m}")
+    private Duration window;
+    
+    /**
+     * Coalescing key of a notification
+     */
+    public record Key(Long userId, String type, String dedupeKey) {
+        
+        /**
+         * The item's key, or null when it carries no dedupe key
+         */
+        public static Key of(CreateNotificationRequest item) {
+            if (item.dedupeKey() == null || item.dedupeKey().isBlank()) {
+                return null;
+            }
+            return new Key(item.userId(), item.type(), item.dedupeKey());
+        }
+        
+        private String lockName() {
+            return userId + "|" + type + "|" + dedupeKey;
+        }
+    }
+    
+    /**
+     * Fold each group of repeats into its existing notification (text from the group's last item)
+     * Returns the updated notifications by key; keys missing from the result must be inserted by
+     * the caller, in the same transaction, while the locks are still held.
+     */
+    public Map<Key, NotificationDTO> coalesce(Map<Key, List<CreateNotificationRequest>> repeats, Instant now) {
+        if (repeats.isEmpty()) {
+            return Map.of();
+        }
+        lock(repeats.keySet());
+        
+        LocalDateTime occurredAt = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        LocalDateTime windowStart = LocalDateTime.ofInstant(now.minus(window), ZoneOffset.UTC);
+        Map<Key, NotificationDTO> updated = new HashMap<>();
+        RowCallbackHandler collect = rs -> updated.put(
+            new Key(rs.getLong("user_id"), rs.getString("type"), rs.getString("dedupe_key")),
+            toDTO(rs));
+        
+        List<Map.Entry<Key, List<CreateNotificationRequest>>> entries = new ArrayList<>(repeats.entrySet());
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            List<Map.Entry<Key, List<CreateNotificationRequest>>> chunk =
+                entries.subList(from, Math.min(from + CHUNK_SIZE, entries.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 6 + 3);
+            args.add(occurredAt);
+            for (Map.Entry<Key, List<CreateNotificationRequest>> entry : chunk) {
+                CreateNotificationRequest latest = entry.getValue().get(entry.getValue().size() - 1);
+                args.add(entry.getKey().userId());
+                args.add(entry.getKey().type());
+                args.add(entry.getKey().dedupeKey());
+                args.add(entry.getValue().size());
+                args.add(latest.title());
+                args.add(latest.message());
+            }
+            args.add(windowStart);
+            args.add(windowStart);
+            String sql = COALESCE.formatted(String.join(", ", Collections.nCopies(chunk.size(), VALUES_ROW)));
+            jdbcTemplate.query(sql, collect, args.toArray());
+        }
+        return updated;
+    }
+    
+    /**
+     * Take the advisory lock of every key, held until the transaction ends
+     */
+    private void lock(Iterable<Key> keys) {
+        List<Object> args = new ArrayList<>();
+        args.add(LOCK_SPACE);
+        keys.forEach(key -> args.add(key.lockName()));
+        String sql = LOCK.formatted(String.join(", ", Collections.nCopies(args.size() - 1, "(?::text)")));
+        RowCallbackHandler ignore = rs -> { };
+        jdbcTemplate.query(sql, ignore, args.toArray());
+    }
+    
+    private NotificationDTO toDTO(ResultSet rs) throws SQLException {
+        return new NotificationDTO(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("message"),
+            rs.getString("type"),
+            rs.getString("priority"),
+            rs.getBoolean("is_read"),
+            rs.getString("action_url"),
+            utc(rs.getObject("created_at", LocalDateTime.class)),
+            rs.getInt("occurrences"),
+            utc(rs.getObject("last_occurred_at", LocalDateTime.class))
+        );
+    }
+    
+    private static Instant utc(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+    }
+}
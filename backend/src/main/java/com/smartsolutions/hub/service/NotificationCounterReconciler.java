@@ -0,0 +1,88 @@
+package com.smartsolutions.hub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Notification Counter Reconciler
+ * Periodically compares notification_counters with the notifications table and
+ * recomputes the counters that differ. Each fix locks the counter row first, so
+ * concurrent trigger updates are never lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationCounterReconciler {
+    
+    private static final String FIND_DRIFTED_USERS = """
+        SELECT c.user_id FROM notification_counters c
+        LEFT JOIN (
+            SELECT user_id, COUNT(*) AS unread FROM notifications WHERE NOT is_read GROUP BY user_id
+        ) a ON a.user_id = c.user_id
+        WHERE c.unread_count <> COALESCE(a.unread, 0)
+        UNION
+        SELECT DISTINCT n.user_id FROM notifications n
+        WHERE NOT n.is_read
+          AND NOT EXISTS (SELECT 1 FROM notification_counters c WHERE c.user_id = n.user_id)
+        """;
+    
+    private static final String ENSURE_COUNTER =
+        "INSERT INTO notification_counters (user_id, unread_count) VALUES (?, 0) ON CONFLICT DO NOTHING";
+    
+    private static final String LOCK_COUNTER =
+        "SELECT unread_count FROM notification_counters WHERE user_id = ? FOR UPDATE";
+    
+    // Separate statement: its snapshot is taken after the lock, so it sees every committed change
+    private static final String RECOMPUTE_COUNTER = """
+        UPDATE notification_counters
+        SET unread_count = (SELECT COUNT(*) FROM notifications WHERE user_id = ? AND NOT is_read)
+        WHERE user_id = ?
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    private Counter correctedCounter;
+    
+    @PostConstruct
+    public void init() {
+        this.correctedCounter = Counter.builder("notifications.counters.corrected")
+            .description("Unread counters recomputed by reconciliation")
+            .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${hub.notifications.counters.reconcile-interval-ms:3600000}",
+        initialDelayString = "${hub.notifications.counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        List<Long> candidates = jdbcTemplate.queryForList(FIND_DRIFTED_USERS, Long.class);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        int corrected = 0;
+        for (Long userId : candidates) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(ENSURE_COUNTER, userId);
+                    jdbcTemplate.queryForObject(LOCK_COUNTER, Long.class, userId);
+                    jdbcTemplate.update(RECOMPUTE_COUNTER, userId, userId);
+                });
+                corrected++;
+            } catch (Exception e) {
+                log.warn("Could not reconcile unread counter for user {}: {}", userId, e.getMessage());
+            }
+        }
+        correctedCounter.increment(corrected);
+        log.info("Reconciled {} unread notification counters", corrected);
+    }
+}
@@ -0,0 +1,131 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.CacheConfig;
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import com.smartsolutions.hub.model.Notification;
+import com.smartsolutions.hub.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Notification Digest Service
+ * Users with the "notificationDigest" preference get their low-priority notifications as one
+ * periodic summary: items are parked in notification_digest_items (no notification row, no
+ * unread increment) and turned into a single notification per user on each run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestService {
+    
+    public static final String DIGEST_PRIORITY = "low";
+    private static final int MAX_LISTED_TITLES = 20;
+    
+    private static final String INSERT_ITEM =
+        "INSERT INTO notification_digest_items (user_id, title, type, created_at) VALUES (?, ?, ?, ?)";
+    
+    private static final String PENDING_USERS = "SELECT DISTINCT user_id FROM notification_digest_items";
+    
+    // Claim and remove in one statement: a concurrent run on another node gets nothing
+    private static final String CLAIM_ITEMS =
+        "DELETE FROM notification_digest_items WHERE user_id = ? RETURNING title";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationRepository notificationRepository;
+    private final NotificationStreamService notificationStreamService;
+    private final CacheManager cacheManager;
+    
+    /**
+     * Park items for the next digest (one JDBC batch)
+     */
+    public void defer(Collection<CreateNotificationRequest> items, Instant now) {
+        LocalDateTime createdAt = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items.stream()
+            .map(item -> new Object[] { item.userId(), item.title(), item.type(), createdAt })
+            .toList());
+    }
+    
+    @Scheduled(fixedDelayString = "${hub.notifications.digest.interval-ms:3600000}",
+        initialDelayString = "${hub.notifications.digest.interval-ms:3600000}")
+    public void sendDigests() {
+        List<Long> userIds = jdbcTemplate.queryForList(PENDING_USERS, Long.class);
+        int sent = 0;
+        for (Long userId : userIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> sendDigest(userId)))) {
+                    sent++;
+                }
+            } catch (Exception e) {
+                log.warn("Could not send notification digest to user {}: {}", userId, e.getMessage());
+            }
+        }
+        if (sent > 0) {
+            log.info("Sent {} notification digests", sent);
+        }
+    }
+    
+    private boolean sendDigest(Long userId) {
+        List<String> titles = jdbcTemplate.queryForList(CLAIM_ITEMS, String.class, userId);
+        if (titles.isEmpty()) {
+            return false;
+        }
+        
+        Notification digest = new Notification();
+        digest.setUserId(userId);
+        digest.setTitle(titles.size() == 1 ? titles.get(0) : titles.size() + " new notifications");
+        digest.setMessage(summarize(titles));
+        digest.setType("info");
+        digest.setPriority(DIGEST_PRIORITY);
+        Notification saved = notificationRepository.save(digest);
+        
+        Cache unreadCounts = cacheManager.getCache(CacheConfig.UNREAD_COUNTS);
+        if (unreadCounts != null) {
+            unreadCounts.evict(userId);
+        }
+        notificationStreamService.publishCreated(userId, List.of(new NotificationDTO(
+            saved.getId(),
+            saved.getTitle(),
+            saved.getMessage(),
+            saved.getType(),
+            saved.getPriority(),
+            saved.getIsRead(),
+            saved.getActionUrl(),
+            saved.getCreatedAt(),
+            saved.getOccurrences(),
+            saved.getLastOccurredAt()
+        )));
+        return true;
+    }
+    
+    /**
+     * One line per distinct title with its count, most frequent first
+     */
+    private String summarize(List<String> titles) {
+        Map<String, Long> counts = titles.stream()
+            .collect(Collectors.groupingBy(title -> title, LinkedHashMap::new, Collectors.counting()));
+        String lines = counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(MAX_LISTED_TITLES)
+            .map(entry -> entry.getValue() > 1 ? entry.getKey() + " (x" + entry.getValue() + ")" : entry.getKey())
+            .collect(Collectors.joining("\n"));
+        int hidden = counts.size() - MAX_LISTED_TITLES;
+        return hidden > 0 ? lines + "\n+" + hidden + " more" : lines;
+    }
+}
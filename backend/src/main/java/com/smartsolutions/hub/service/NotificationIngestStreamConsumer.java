@@ -0,0 +1,472 @@
+package com.smartsolutions.hub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsolutions.hub.config.IngestStreamProperties;
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationBatchResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notification Ingest Stream Consumer
+ * Reads notification requests that external systems add to a Redis stream, as members of a
+ * consumer group shared by all backend nodes: each entry goes to one consumer, so throughput
+ * grows with the number of replicas. Every read of up to batchSize entries is written by
+ * NotificationIngestionService in one transaction, and the entries are acknowledged only after
+ * it committed. The stream id of each ingested entry is recorded in the same transaction, so an
+ * entry delivered again after a lost XACK is acknowledged without being written twice. A batch
+ * that fails is split in halves until the failing entry is isolated; it stays pending alone.
+ * Entries left pending by a dead consumer are claimed after claimMinIdle and handed to the
+ * workers; entries that cannot be ingested go to the dead-letter stream. The stream is trimmed
+ * up to the oldest entry the groups still need, never beyond it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationIngestStreamConsumer implements SmartLifecycle {
+    
+    private static final String PAYLOAD_FIELD = "payload";
+    
+    // Entries already ingested do not come back: they are only acknowledged
+    private static final String CLAIM_RECEIPTS =
+        "INSERT INTO notification_ingest_receipts (source_id, received_at) VALUES %s "
+            + "ON CONFLICT DO NOTHING RETURNING source_id";
+    
+    private static final String PURGE_RECEIPTS = "DELETE FROM notification_ingest_receipts WHERE received_at < ?";
+    
+    private final IngestStreamProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationIngestionService notificationIngestionService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final List<Thread> workers = new ArrayList<>();
+    // Batches claimed by maintain(), processed by the workers before new entries
+    private final BlockingQueue<List<MapRecord<String, Object, Object>>> claimedBatches = new LinkedBlockingQueue<>();
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicLong pendingEntries = new AtomicLong();
+    
+    private volatile boolean running;
+    
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+    
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        registerMetrics();
+        createGroup();
+        running = true;
+        for (int i = 0; i < properties.getConsumers(); i++) {
+            String consumerName = "backend-" + nodeId + "-" + i;
+            Thread worker = new Thread(() -> consume(consumerName), "notification-ingest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Notification ingest stream consumer started ({} consumers on {})",
+            properties.getConsumers(), properties.getKey());
+    }
+    
+    /**
+     * Finish the batch in progress (it is acknowledged if it commits), then stop reading
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(properties.getBlock().toMillis() + 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void registerMetrics() {
+        acceptedCounter = recordsCounter("accepted");
+        rejectedCounter = recordsCounter("rejected");
+        failedCounter = recordsCounter("failed");
+        batchTimer = Timer.builder("notifications.ingest.stream.batch")
+            .description("Time to write and acknowledge one batch read from the stream")
+            .register(meterRegistry);
+        Gauge.builder("notifications.ingest.stream.lag", lag, AtomicLong::get)
+            .description("Entries added to the stream but not yet delivered to the consumer group")
+            .register(meterRegistry);
+        Gauge.builder("notifications.ingest.stream.pending", pendingEntries, AtomicLong::get)
+            .description("Entries delivered to a consumer of the group but not acknowledged yet")
+            .register(meterRegistry);
+    }
+    
+    private Counter recordsCounter(String result) {
+        return Counter.builder("notifications.ingest.stream.records")
+            .tag("result", result)
+            .description("Stream entries processed by this node")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * XGROUP CREATE ... MKSTREAM; the group usually exists already, and is created again when
+     * a read reports it missing (Redis down at startup, stream deleted)
+     */
+    private void createGroup() {
+        byte[] key = properties.getKey().getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                .xGroupCreate(key, properties.getGroup(), ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                log.warn("Could not create consumer group {}: {}", properties.getGroup(), e.getMessage());
+            }
+        }
+    }
+    
+    private void consume(String consumerName) {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        Consumer consumer = Consumer.from(properties.getGroup(), consumerName);
+        StreamReadOptions options = StreamReadOptions.empty()
+            .count(properties.getBatchSize())
+            .block(properties.getBlock());
+        
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> claimed = claimedBatches.poll();
+                if (claimed != null) {
+                    process(claimed);
+                    continue;
+                }
+                List<MapRecord<String, Object, Object>> records = stream.read(consumer, options,
+                    StreamOffset.create(properties.getKey(), ReadOffset.lastConsumed()));
+                if (records != null && !records.isEmpty()) {
+                    process(records);
+                }
+            } catch (Exception e) {
+                if (isMissingGroup(e)) {
+                    log.info("Consumer group {} does not exist, creating it", properties.getGroup());
+                    createGroup();
+                } else {
+                    log.warn("Notification ingest stream read failed ({}), retrying: {}", consumerName, e.getMessage());
+                }
+                pause();
+            }
+        }
+    }
+    
+    private boolean isMissingGroup(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Write the batch, then acknowledge what was written; entries that failed are not
+     * acknowledged and are delivered again once claimed
+     */
+    private void process(List<MapRecord<String, Object, Object>> records) {
+        batchTimer.record(() -> {
+            List<CreateNotificationRequest> items = new ArrayList<>();
+            List<MapRecord<String, Object, Object>> itemRecords = new ArrayList<>();
+            List<RecordId> done = new ArrayList<>();
+            
+            for (MapRecord<String, Object, Object> record : records) {
+                Object payload = record.getValue().get(PAYLOAD_FIELD);
+                try {
+                    items.add(objectMapper.readValue(String.valueOf(payload), CreateNotificationRequest.class));
+                    itemRecords.add(record);
+                } catch (Exception e) {
+                    deadLetter(record, "malformed payload: " + e.getMessage());
+                    done.add(record.getId());
+                }
+            }
+            
+            if (!items.isEmpty()) {
+                ingest(itemRecords, items, done);
+            }
+            acknowledge(done);
+        });
+    }
+    
+    /**
+     * Write entries in one transaction; when it fails for a reason other than an unavailable
+     * database, each half is retried on its own so a single bad entry stays pending alone
+     * (and is dead-lettered after maxDeliveries) instead of holding back the whole batch
+     */
+    private void ingest(List<MapRecord<String, Object, Object>> records,
+                        List<CreateNotificationRequest> items,
+                        List<RecordId> done) {
+        Ingested ingested;
+        try {
+            ingested = transactionTemplate.execute(status -> ingestOnce(records, items));
+        } catch (Exception e) {
+            if (items.size() == 1 || isTransient(e)) {
+                failedCounter.increment(items.size());
+                log.warn("Could not ingest {} stream entries, leaving them pending: {}",
+                    items.size(), e.getMessage());
+                return;
+            }
+            int half = items.size() / 2;
+            ingest(records.subList(0, half), items.subList(0, half), done);
+            ingest(records.subList(half, records.size()), items.subList(half, items.size()), done);
+            return;
+        }
+        
+        if (ingested.result() != null) {
+            for (NotificationBatchResult.Rejection rejection : ingested.result().rejections()) {
+                deadLetter(ingested.records().get(rejection.index()), rejection.reason());
+            }
+            acceptedCounter.increment(ingested.result().accepted());
+        }
+        records.forEach(record -> done.add(record.getId()));
+    }
+    
+    /**
+     * Record the receipts, then write only the entries not ingested before
+     */
+    private Ingested ingestOnce(List<MapRecord<String, Object, Object>> records,
+                                List<CreateNotificationRequest> items) {
+        LocalDateTime receivedAt = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        List<Object> args = new ArrayList<>(records.size() * 2);
+        for (MapRecord<String, Object, Object> record : records) {
+            args.add(record.getId().getValue());
+            args.add(receivedAt);
+        }
+        Set<String> fresh = Set.copyOf(jdbcTemplate.queryForList(
+            CLAIM_RECEIPTS.formatted(String.join(", ", Collections.nCopies(records.size(), "(?, ?)"))),
+            String.class, args.toArray()));
+        
+        List<MapRecord<String, Object, Object>> freshRecords = new ArrayList<>();
+        List<CreateNotificationRequest> freshItems = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (fresh.contains(records.get(i).getId().getValue())) {
+                freshRecords.add(records.get(i));
+                freshItems.add(items.get(i));
+            }
+        }
+        if (freshItems.size() < items.size()) {
+            log.info("Skipping {} notification stream entries already ingested", items.size() - freshItems.size());
+        }
+        if (freshItems.isEmpty()) {
+            return new Ingested(freshRecords, null);
+        }
+        return new Ingested(freshRecords, notificationIngestionService.ingest(freshItems));
+    }
+    
+    /**
+     * Entries actually written, in the order of the result's rejection indexes
+     */
+    private record Ingested(List<MapRecord<String, Object, Object>> records, NotificationBatchResult result) {
+    }
+    
+    /**
+     * Failures that say nothing about the entries themselves: splitting the batch would not help
+     */
+    private boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+            || e instanceof RecoverableDataAccessException
+            || e instanceof CannotCreateTransactionException;
+    }
+    
+    private void acknowledge(List<RecordId> ids) {
+        if (!ids.isEmpty()) {
+            redisTemplate.opsForStream()
+                .acknowledge(properties.getKey(), properties.getGroup(), ids.toArray(RecordId[]::new));
+        }
+    }
+    
+    private void deadLetter(MapRecord<String, Object, Object> record, String reason) {
+        rejectedCounter.increment();
+        Map<String, String> entry = new HashMap<>();
+        record.getValue().forEach((field, value) -> entry.put(String.valueOf(field), String.valueOf(value)));
+        entry.put("sourceId", record.getId().getValue());
+        entry.put("reason", reason);
+        redisTemplate.opsForStream().add(properties.getDeadLetterKey(), entry);
+    }
+    
+    /**
+     * Claim entries left pending by dead or stuck consumers (processed by the workers), refresh
+     * the gauges, trim the stream and purge old receipts
+     */
+    @Scheduled(fixedDelayString = "${hub.notifications.ingest-stream.claim-interval-ms:30000}")
+    public void maintain() {
+        if (!running) {
+            return;
+        }
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        String key = properties.getKey();
+        try {
+            String claimer = "backend-" + nodeId + "-claim";
+            List<RecordId> stale = new ArrayList<>();
+            List<RecordId> exhausted = new ArrayList<>();
+            PendingMessages pending =
+                stream.pending(key, properties.getGroup(), Range.unbounded(), properties.getBatchSize());
+            for (PendingMessage message : pending) {
+                if (message.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimMinIdle()) < 0) {
+                    continue;
+                }
+                if (message.getTotalDeliveryCount() >= properties.getMaxDeliveries()) {
+                    exhausted.add(message.getId());
+                } else {
+                    stale.add(message.getId());
+                }
+            }
+            
+            if (!exhausted.isEmpty()) {
+                List<MapRecord<String, Object, Object>> poison = stream.claim(key, properties.getGroup(), claimer,
+                    properties.getClaimMinIdle(), exhausted.toArray(RecordId[]::new));
+                String reason = "delivered " + properties.getMaxDeliveries() + " times without being ingested";
+                poison.forEach(record -> deadLetter(record, reason));
+                acknowledge(poison.stream().map(MapRecord::getId).toList());
+            }
+            // Claimed only when the previous claim was processed: claiming resets the idle time
+            if (!stale.isEmpty() && claimedBatches.isEmpty()) {
+                List<MapRecord<String, Object, Object>> claimed = stream.claim(key, properties.getGroup(), claimer,
+                    properties.getClaimMinIdle(), stale.toArray(RecordId[]::new));
+                if (!claimed.isEmpty()) {
+                    log.info("Claimed {} pending notification stream entries", claimed.size());
+                    claimedBatches.add(claimed);
+                }
+            }
+            
+            trimAndMeasure(key);
+        } catch (Exception e) {
+            log.warn("Notification ingest stream maintenance failed: {}", e.getMessage());
+        }
+        
+        try {
+            jdbcTemplate.update(PURGE_RECEIPTS,
+                LocalDateTime.ofInstant(Instant.now().minus(properties.getReceiptRetention()), ZoneOffset.UTC));
+        } catch (Exception e) {
+            log.warn("Could not purge notification ingest receipts: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Read the groups from XINFO GROUPS (raw reply: lag and entries-read are not mapped by
+     * Spring Data), then XTRIM MINID below the oldest entry any group still needs: its oldest
+     * pending entry, or its last delivered one. Undelivered and pending entries are never trimmed.
+     */
+    private void trimAndMeasure(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        List<?> groups = redisTemplate.execute((RedisCallback<List<?>>) connection ->
+            (List<?>) connection.execute("XINFO", "GROUPS".getBytes(StandardCharsets.UTF_8), rawKey));
+        if (groups == null || groups.isEmpty()) {
+            return;
+        }
+        
+        String keepFrom = null;
+        for (Object group : groups) {
+            Map<String, Object> info = toMap((List<?>) group);
+            String name = text(info.get("name"));
+            long pendingCount = info.get("pending") instanceof Long count ? count : 0;
+            String needed = text(info.get("last-delivered-id"));
+            if (pendingCount > 0) {
+                needed = redisTemplate.opsForStream().pending(key, name).minMessageId();
+            }
+            if (needed != null && (keepFrom == null || compareIds(needed, keepFrom) < 0)) {
+                keepFrom = needed;
+            }
+            if (properties.getGroup().equals(name)) {
+                pendingEntries.set(pendingCount);
+                // Null when Redis cannot tell (entries deleted out of order, Redis before 7.0)
+                if (info.get("lag") instanceof Long groupLag) {
+                    lag.set(groupLag);
+                }
+            }
+        }
+        
+        if (keepFrom != null && !"0-0".equals(keepFrom)) {
+            byte[] minId = keepFrom.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("XTRIM", rawKey,
+                "MINID".getBytes(StandardCharsets.UTF_8), "~".getBytes(StandardCharsets.UTF_8), minId));
+        }
+    }
+    
+    private static Map<String, Object> toMap(List<?> fields) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            map.put(text(fields.get(i)), fields.get(i + 1));
+        }
+        return map;
+    }
+    
+    private static String text(Object value) {
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value != null ? value.toString() : null;
+    }
+    
+    /**
+     * Order of two stream ids ("millis-sequence")
+     */
+    private static int compareIds(String left, String right) {
+        String[] l = left.split("-");
+        String[] r = right.split("-");
+        int byTime = Long.compare(Long.parseLong(l[0]), Long.parseLong(r[0]));
+        return byTime != 0 ? byTime : Long.compare(Long.parseLong(l[1]), Long.parseLong(r[1]));
+    }
+    
+    private void pause() {
+        try {
+            Thread.sleep(properties.getBlock().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.CacheConfig;
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationBatchResult;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import com.smartsolutions.hub.exception.BadRequestException;
+import com.smartsolutions.hub.model.Notification;
+import com.smartsolutions.hub.repository.UserPreferencesRepository;
+import com.smartsolutions.hub.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Notification Ingestion Service
+ * Creates notifications in bulk for upstream systems. Items are validated one by one, so a bad
+ * item is reported instead of failing the batch. Valid items then go through three stages:
+ * items with a future deliverAt are handed to NotificationScheduler, low-priority items for
+ * users in digest mode are deferred to NotificationDigestService, and repeats carrying a dedupe
+ * key are coalesced: the whole batch goes through NotificationCoalescer at once (advisory lock
+ * per key, one UPDATE), and a key with no existing notification is inserted once with its repeat
+ * count. The rest are persisted with pooled sequence ids (no round trip per row) and sent as
+ * JDBC batches (hibernate.jdbc.batch_size); the persistence context is flushed every FLUSH_INTERVAL entities.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationIngestionService {
+    
+    public static final int MAX_BATCH_SIZE = 5000;
+    private static final int FLUSH_INTERVAL = 500;
+    
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final UserPreferencesRepository userPreferencesRepository;
+    private final NotificationCoalescer notificationCoalescer;
+    private final NotificationDigestService notificationDigestService;
+    private final NotificationScheduler notificationScheduler;
+    private final NotificationStreamService notificationStreamService;
+    private final CacheManager cacheManager;
+    private final Validator validator;
+    
+    @Transactional
+    public NotificationBatchResult ingest(List<CreateNotificationRequest> items) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("A batch cannot contain more than " + MAX_BATCH_SIZE + " notifications");
+        }
+        
+        // One query for every recipient of the batch
+        Set<Long> recipients = items.stream()
+            .filter(Objects::nonNull)
+            .map(CreateNotificationRequest::userId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<Long> existingUsers = recipients.isEmpty() ? Set.of() : userRepository.findExistingIds(recipients);
+        
+        Set<Long> digestUsers = existingUsers.isEmpty()
+            ? Set.of()
+            : userPreferencesRepository.findDigestUserIds(existingUsers);
+        
+        Instant now = Instant.now();
+        List<NotificationBatchResult.Rejection> rejections = new ArrayList<>();
+        List<CreateNotificationRequest> scheduled = new ArrayList<>();
+        List<CreateNotificationRequest> deferred = new ArrayList<>();
+        List<CreateNotificationRequest> immediate = new ArrayList<>();
+        Map<NotificationCoalescer.Key, List<CreateNotificationRequest>> repeats = new LinkedHashMap<>();
+        
+        for (int index = 0; index < items.size(); index++) {
+            CreateNotificationRequest item = items.get(index);
+            String reason = validate(item, existingUsers, now);
+            if (reason != null) {
+                rejections.add(new NotificationBatchResult.Rejection(index, reason));
+                continue;
+            }
+            
+            if (isScheduled(item, now)) {
+                scheduled.add(item);
+                continue;
+            }
+            
+            boolean digest = NotificationDigestService.DIGEST_PRIORITY.equals(item.priority());
+            if (digest && digestUsers.contains(item.userId())) {
+                deferred.add(item);
+                continue;
+            }
+            
+            immediate.add(item);
+            NotificationCoalescer.Key key = NotificationCoalescer.Key.of(item);
+            if (key != null) {
+                repeats.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+            }
+        }
+        
+        // One locked UPDATE for every keyed group; unmatched groups become a single new row
+        Map<NotificationCoalescer.Key, NotificationDTO> existing = notificationCoalescer.coalesce(repeats, now);
+        Map<Long, List<Notification>> created = new LinkedHashMap<>();
+        Map<Long, List<NotificationDTO>> updated = new LinkedHashMap<>();
+        int coalesced = 0;
+        for (Map.Entry<NotificationCoalescer.Key, List<CreateNotificationRequest>> group : repeats.entrySet()) {
+            NotificationDTO notification = existing.get(group.getKey());
+            if (notification != null) {
+                updated.computeIfAbsent(group.getKey().userId(), id -> new ArrayList<>()).add(notification);
+                coalesced += group.getValue().size();
+            } else {
+                coalesced += group.getValue().size() - 1;
+            }
+        }
+        
+        Set<NotificationCoalescer.Key> inserted = new HashSet<>();
+        int pending = 0;
+        for (CreateNotificationRequest item : immediate) {
+            NotificationCoalescer.Key key = NotificationCoalescer.Key.of(item);
+            List<CreateNotificationRequest> group = key != null ? repeats.get(key) : List.of(item);
+            if (key != null && (existing.containsKey(key) || !inserted.add(key))) {
+                continue;
+            }
+            CreateNotificationRequest latest = group.get(group.size() - 1);
+            
+            Notification notification = new Notification();
+            notification.setUserId(item.userId());
+            notification.setTitle(latest.title());
+            notification.setMessage(latest.message());
+            notification.setType(item.type());
+            notification.setPriority(item.priority());
+            notification.setActionUrl(item.actionUrl());
+            notification.setDedupeKey(key != null ? item.dedupeKey() : null);
+            notification.setOccurrences(group.size());
+            notification.setLastOccurredAt(now);
+            notification.setExpiresAt(item.expiresAt());
+            entityManager.persist(notification);
+            created.computeIfAbsent(item.userId(), id -> new ArrayList<>()).add(notification);
+            
+            if (++pending == FLUSH_INTERVAL) {
+                flush();
+                pending = 0;
+            }
+        }
+        flush();
+        if (!scheduled.isEmpty()) {
+            notificationScheduler.schedule(scheduled, now);
+        }
+        if (!deferred.isEmpty()) {
+            notificationDigestService.defer(deferred, now);
+        }
+        notificationScheduler.expireAfterCommit(created.values().stream()
+            .flatMap(List::stream)
+            .filter(notification -> notification.getExpiresAt() != null)
+            .collect(Collectors.toMap(Notification::getId, Notification::getExpiresAt)));
+        
+        // Transaction-aware cache: evictions and pushes happen after commit
+        Cache unreadCounts = cacheManager.getCache(CacheConfig.UNREAD_COUNTS);
+        created.forEach((userId, notifications) -> {
+            if (unreadCounts != null) {
+                unreadCounts.evict(userId);
+            }
+            notificationStreamService.publishCreated(userId, notifications.stream().map(this::toDTO).toList());
+        });
+        updated.forEach(notificationStreamService::publishUpdated);
+        
+        int accepted = items.size() - rejections.size();
+        log.info("Notification batch: {} accepted ({} coalesced, {} deferred to digests, {} scheduled), {} rejected",
+            accepted, coalesced, deferred.size(), scheduled.size(), rejections.size());
+        return new NotificationBatchResult(
+            accepted, coalesced, deferred.size(), scheduled.size(), rejections.size(), rejections);
+    }
+    
+    /**
+     * Send pending inserts and detach them, so the persistence context stays small
+     */
+    private void flush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    private boolean isScheduled(CreateNotificationRequest item, Instant now) {
+        return item.deliverAt() != null && item.deliverAt().isAfter(now);
+    }
+    
+    /**
+     * Reason the item is rejected, or null when it is valid
+     */
+    private String validate(CreateNotificationRequest item, Set<Long> existingUsers, Instant now) {
+        if (item == null) {
+            return "notification is null";
+        }
+        Set<ConstraintViolation<CreateNotificationRequest>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+        }
+        if (!existingUsers.contains(item.userId())) {
+            return "userId: unknown user " + item.userId();
+        }
+        Instant visibleFrom = isScheduled(item, now) ? item.deliverAt() : now;
+        if (item.expiresAt() != null && !item.expiresAt().isAfter(visibleFrom)) {
+            return "expiresAt: must be after deliverAt and the current time";
+        }
+        return null;
+    }
+    
+    private NotificationDTO toDTO(Notification notification) {
+        return new NotificationDTO(
+            notification.getId(),
+            notification.getTitle(),
+            notification.getMessage(),
+            notification.getType(),
+            notification.getPriority(),
+            notification.getIsRead(),
+            notification.getActionUrl(),
+            notification.getCreatedAt(),
+            notification.getOccurrences(),
+            notification.getLastOccurredAt()
+        );
+    }
+}
@@ -0,0 +1,261 @@
+package com.smartsolutions.hub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Notification Partition Manager
+ * Maintains the monthly partitions of notifications (see V13): creates the upcoming months ahead
+ * of time, and for months past the retention period exports the partition to a gzipped CSV file
+ * in the archive directory, then detaches and drops it. Dropping skips the DELETE triggers, so the
+ * unread counters are adjusted in the detaching transaction. An advisory lock keeps nodes from
+ * doing the same work twice. Runs on the shared scheduling pool (spring.task.scheduling.pool.size), so
+ * a long export does not delay the other scheduled jobs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPartitionManager {
+    
+    private static final long MAINTENANCE_LOCK = 0x4E4F5449504152L; // "NOTIPAR"
+    private static final Pattern PARTITION_NAME = Pattern.compile("notifications_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    
+    private static final String LIST_PARTITIONS = """
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'notifications'::regclass
+        """;
+    
+    private static final String SUBTRACT_UNREAD = """
+        UPDATE notification_counters c
+        SET unread_count = GREATEST(0, c.unread_count - d.removed)
+        FROM (SELECT user_id, COUNT(*) AS removed FROM %s WHERE NOT is_read GROUP BY user_id) d
+        WHERE c.user_id = d.user_id
+        """;
+    
+    // Changes with any delete or read flag update since the export
+    private static final String PARTITION_STATE = """
+        SELECT COUNT(*) || ':' || COALESCE(SUM(id), 0) || ':' || COALESCE(SUM(id) FILTER (WHERE is_read), 0)
+        FROM %s
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${hub.notifications.partitions.retention-months:12}")
+    private int retentionMonths;
+    
+    @Value("${hub.notifications.partitions.premake-months:3}")
+    private int premakeMonths;
+    
+    @Value("${hub.notifications.partitions.archive-dir:archive/notifications}")
+    private Path archiveDir;
+    
+    @Value("${hub.notifications.partitions.lock-timeout:5s}")
+    private Duration lockTimeout;
+    
+    private TransactionTemplate snapshotTemplate;
+    private Counter archivedCounter;
+    
+    @PostConstruct
+    public void init() {
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTemplate.setReadOnly(true);
+        this.archivedCounter = Counter.builder("notifications.partitions.archived")
+            .description("Expired notification partitions exported and dropped")
+            .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${hub.notifications.partitions.maintenance-interval-ms:21600000}",
+        initialDelayString = "${hub.notifications.partitions.initial-delay-ms:60000}")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int ahead = 0; ahead <= premakeMonths; ahead++) {
+            createPartition(current.plusMonths(ahead));
+        }
+        
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS, String.class)) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), PARTITION_SUFFIX).isBefore(oldestKept)) {
+                try {
+                    archive(partition);
+                } catch (Exception e) {
+                    // Nothing is dropped unless the export succeeded; retried on the next run
+                    log.error("Could not archive notification partition {}: {}", partition, e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String ddl = "CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF notifications"
+            + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tryLock()) {
+                    jdbcTemplate.execute(ddl);
+                }
+            });
+        } catch (Exception e) {
+            // e.g. rows for that month already in notifications_default
+            log.error("Could not create notification partition {}: {}", partition, e.getMessage());
+        }
+    }
+    
+    /**
+     * Export, then fix the counters, detach and drop
+     * The export reads a snapshot and locks nothing that writers need. The second transaction
+     * locks the parent table first, as every writer does, so it cannot deadlock with them; it
+     * waits at most lockTimeout, since readers queue behind it. If the partition changed since
+     * the export (rows deleted or marked read), nothing is dropped and the next run exports again.
+     */
+    private void archive(String partition) {
+        Path file = archiveDir.resolve(partition + ".csv.gz");
+        // Another node may be archiving, or may already have dropped it
+        String exported = snapshotTemplate.execute(status -> {
+            if (!tryLock() || !exists(partition)) {
+                return null;
+            }
+            String state = state(partition);
+            long rows = export(partition, file);
+            log.info("Exported notification partition {} ({} rows) to {}", partition, rows, file);
+            return state;
+        });
+        if (exported == null) {
+            return;
+        }
+        
+        Boolean archived = transactionTemplate.execute(status -> {
+            if (!tryLock() || !exists(partition)) {
+                return false;
+            }
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout.toMillis());
+            jdbcTemplate.execute("LOCK TABLE notifications IN ACCESS EXCLUSIVE MODE");
+            if (!exported.equals(state(partition))) {
+                log.info("Notification partition {} changed during its export, archived on the next run", partition);
+                return false;
+            }
+            jdbcTemplate.update(SUBTRACT_UNREAD.formatted(partition));
+            jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Archived notification partition {} to {}", partition, file);
+            return true;
+        });
+        if (Boolean.TRUE.equals(archived)) {
+            archivedCounter.increment();
+        }
+    }
+    
+    private String state(String partition) {
+        return jdbcTemplate.queryForObject(PARTITION_STATE.formatted(partition), String.class);
+    }
+    
+    /**
+     * Stream the partition into a gzipped CSV file (cursor fetch, constant memory)
+     */
+    private long export(String partition, Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            long rows;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+                rows = jdbcTemplate.query(connection -> {
+                    PreparedStatement statement =
+                        connection.prepareStatement("SELECT * FROM " + partition + " ORDER BY id");
+                    statement.setFetchSize(EXPORT_FETCH_SIZE);
+                    return statement;
+                }, (ResultSetExtractor<Long>) resultSet -> {
+                    ResultSetMetaData meta = resultSet.getMetaData();
+                    int columns = meta.getColumnCount();
+                    try {
+                        for (int i = 1; i <= columns; i++) {
+                            out.write((i > 1 ? "," : "") + meta.getColumnName(i));
+                        }
+                        out.write('\n');
+                        long count = 0;
+                        while (resultSet.next()) {
+                            for (int i = 1; i <= columns; i++) {
+                                out.write((i > 1 ? "," : "") + csv(resultSet.getString(i)));
+                            }
+                            out.write('\n');
+                            count++;
+                        }
+                        return count;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write archive " + file, e);
+        }
+    }
+    
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+    
+    /**
+     * Transaction-scoped advisory lock: released on commit or rollback
+     */
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK));
+    }
+    
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+    
+    static String partitionName(YearMonth month) {
+        return "notifications_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,423 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.CacheConfig;
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Notification Scheduler
+ * Delivers scheduled notifications at their deliver_at and deletes notifications at their
+ * expires_at. Only the timers due within the next horizon are held in memory, in a hierarchical
+ * timing wheel: they are read from the indexed "due" queries at startup and then once per load
+ * interval, so the tables are never polled per tick. Every node loads the same timers; the claim
+ * (DELETE ... RETURNING) lets exactly one of them deliver or expire each row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationScheduler implements SmartLifecycle {
+    
+    private static final int CLAIM_BATCH_SIZE = 500;
+    
+    private static final String NEXT_IDS =
+        "SELECT nextval('scheduled_notifications_id_seq') FROM generate_series(1, ?)";
+    
+    private static final String INSERT_SCHEDULED = """
+        INSERT INTO scheduled_notifications (id, user_id, title, message, type, priority, action_url,
+            dedupe_key, deliver_at, expires_at, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    
+    private static final String DUE_DELIVERIES =
+        "SELECT id, deliver_at FROM scheduled_notifications WHERE deliver_at < ? ORDER BY deliver_at LIMIT ?";
+    
+    private static final String DUE_EXPIRIES =
+        "SELECT id, expires_at FROM notifications WHERE expires_at < ? ORDER BY expires_at LIMIT ?";
+    
+    // The DELETE is the claim: another node firing the same timer gets no row. Items that expired
+    // before they could be delivered are dropped.
+    private static final String DELIVER = """
+        WITH claimed AS (
+            DELETE FROM scheduled_notifications
+            WHERE id IN (%s) AND deliver_at <= ?
+            RETURNING user_id, title, message, type, priority, action_url, dedupe_key, expires_at
+        )
+        INSERT INTO notifications (user_id, title, message, type, priority, is_read, action_url,
+            dedupe_key, expires_at, created_at, last_occurred_at)
+        SELECT user_id, title, message, type, priority, false, action_url, dedupe_key, expires_at, ?, ?
+        FROM claimed
+        WHERE expires_at IS NULL OR expires_at > ?
+        RETURNING id, user_id, title, message, type, priority, is_read, action_url, created_at,
+                  occurrences, last_occurred_at, expires_at
+        """;
+    
+    // Statement-level triggers (see V11) take the removed unread rows off the counters
+    private static final String EXPIRE =
+        "DELETE FROM notifications WHERE id IN (%s) AND expires_at <= ? RETURNING user_id, id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationStreamService notificationStreamService;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${hub.notifications.scheduling.tick:1s}")
+    private Duration tick;
+    
+    @Value("${hub.notifications.scheduling.wheel-size:64}")
+    private int wheelSize;
+    
+    @Value("${hub.notifications.scheduling.horizon:1h}")
+    private Duration horizon;
+    
+    @Value("${hub.notifications.scheduling.load-interval:10m}")
+    private Duration loadInterval;
+    
+    @Value("${hub.notifications.scheduling.max-loaded:1000000}")
+    private int maxLoaded;
+    
+    // Timers in the wheel or waiting in overdue, so reloads do not add them twice
+    private final Set<Pending> loaded = ConcurrentHashMap.newKeySet();
+    private final Queue<Pending> overdue = new ConcurrentLinkedQueue<>();
+    
+    private TimingWheel<Pending> wheel;
+    private ScheduledExecutorService executor;
+    private Counter deliveredCounter;
+    private Counter expiredCounter;
+    
+    // Timers due before this instant (epoch millis) are loaded or added when created
+    private volatile long loadedUntil;
+    private volatile boolean running;
+    
+    private enum Kind { DELIVER, EXPIRE }
+    
+    private record Pending(Kind kind, long id) {}
+    
+    private record Delivered(Long userId, NotificationDTO notification, Instant expiresAt) {}
+    
+    /**
+     * Park items until their deliverAt, in the caller's transaction
+     */
+    public void schedule(List<CreateNotificationRequest> items, Instant now) {
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS, Long.class, items.size());
+        LocalDateTime createdAt = utc(now);
+        List<Object[]> rows = new ArrayList<>(items.size());
+        Map<Pending, Instant> timers = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            CreateNotificationRequest item = items.get(i);
+            rows.add(new Object[] {
+                ids.get(i),
+                item.userId(),
+                item.title(),
+                item.message(),
+                item.type(),
+                item.priority(),
+                item.actionUrl(),
+                item.dedupeKey() != null && !item.dedupeKey().isBlank() ? item.dedupeKey() : null,
+                utc(item.deliverAt()),
+                item.expiresAt() != null ? utc(item.expiresAt()) : null,
+                createdAt
+            });
+            timers.put(new Pending(Kind.DELIVER, ids.get(i)), item.deliverAt());
+        }
+        jdbcTemplate.batchUpdate(INSERT_SCHEDULED, rows);
+        afterCommit(() -> timers.forEach(this::addIfLoaded));
+    }
+    
+    /**
+     * Start the expiry timers of notifications created in the caller's transaction
+     */
+    public void expireAfterCommit(Map<Long, Instant> expiries) {
+        if (!expiries.isEmpty()) {
+            afterCommit(() -> expiries.forEach((id, expiresAt) ->
+                addIfLoaded(new Pending(Kind.EXPIRE, id), expiresAt)));
+        }
+    }
+    
+    @Override
+    public void start() {
+        deliveredCounter = Counter.builder("notifications.scheduler.fired")
+            .tag("kind", "deliver")
+            .description("Scheduled notifications delivered by this node")
+            .register(meterRegistry);
+        expiredCounter = Counter.builder("notifications.scheduler.fired")
+            .tag("kind", "expire")
+            .description("Expired notifications deleted by this node")
+            .register(meterRegistry);
+        Gauge.builder("notifications.scheduler.timers", loaded, Set::size)
+            .description("Delivery and expiry timers held in memory")
+            .register(meterRegistry);
+        
+        wheel = new TimingWheel<>(tick.toMillis(), wheelSize, System.currentTimeMillis());
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        // Same thread for both: a load never races with a tick
+        executor.scheduleWithFixedDelay(this::load, 0, loadInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::fire, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Read the timers due before now + horizon that are not in memory yet
+     * loadedUntil only covers what was actually read: it stays put when the cap is reached or
+     * the read fails, and stops at the last deadline read when a query was cut by the cap.
+     */
+    private void load() {
+        long previous = loadedUntil;
+        if (loaded.size() >= maxLoaded) {
+            log.warn("Notification scheduler holds {} timers, not loading more", loaded.size());
+            return;
+        }
+        long until = System.currentTimeMillis() + horizon.toMillis();
+        // Raised while reading: rows committed during the read add their own timer
+        loadedUntil = Math.max(previous, until);
+        try {
+            LocalDateTime bound = utc(Instant.ofEpochMilli(until));
+            long deliveries = loadDue(DUE_DELIVERIES, Kind.DELIVER, bound, until, previous);
+            long expiries = loadDue(DUE_EXPIRIES, Kind.EXPIRE, bound, until, previous);
+            loadedUntil = Math.min(deliveries, expiries);
+        } catch (Exception e) {
+            loadedUntil = previous;
+            log.warn("Could not load notification timers: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Add the due timers of one query, within the cap; returns the instant (epoch millis)
+     * before which every timer of that query is now in memory
+     */
+    private long loadDue(String sql, Kind kind, LocalDateTime bound, long until, long previous) {
+        int room = maxLoaded - loaded.size();
+        if (room <= 0) {
+            return previous;
+        }
+        int[] read = { 0 };
+        long[] last = { until };
+        RowCallbackHandler addTimer = rs -> {
+            Instant deadline = instant(rs, 2);
+            add(new Pending(kind, rs.getLong(1)), deadline);
+            read[0]++;
+            last[0] = deadline.toEpochMilli();
+        };
+        jdbcTemplate.query(sql, addTimer, bound, room);
+        // Cut by the cap: later rows, including any sharing the last deadline, wait for a later load
+        return read[0] < room ? until : last[0];
+    }
+    
+    private void addIfLoaded(Pending pending, Instant deadline) {
+        if (running && deadline.toEpochMilli() < loadedUntil && loaded.size() < maxLoaded) {
+            add(pending, deadline);
+        }
+    }
+    
+    private void add(Pending pending, Instant deadline) {
+        if (!loaded.add(pending)) {
+            return;
+        }
+        boolean queued;
+        synchronized (wheel) {
+            queued = wheel.add(deadline.toEpochMilli(), pending);
+        }
+        if (!queued) {
+            overdue.add(pending);
+        }
+    }
+    
+    private void fire() {
+        List<Pending> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        for (Pending pending = overdue.poll(); pending != null; pending = overdue.poll()) {
+            due.add(pending);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        
+        Map<Kind, List<Long>> ids = due.stream().collect(Collectors.groupingBy(
+            Pending::kind, Collectors.mapping(Pending::id, Collectors.toList())));
+        ids.forEach((kind, all) -> {
+            for (int from = 0; from < all.size(); from += CLAIM_BATCH_SIZE) {
+                claim(kind, all.subList(from, Math.min(from + CLAIM_BATCH_SIZE, all.size())));
+            }
+        });
+    }
+    
+    /**
+     * On failure the rows stay in place and the next load picks them up again
+     */
+    private void claim(Kind kind, List<Long> ids) {
+        try {
+            if (kind == Kind.DELIVER) {
+                deliver(ids);
+            } else {
+                expire(ids);
+            }
+        } catch (Exception e) {
+            log.warn("Could not {} {} notifications: {}", kind.name().toLowerCase(), ids.size(), e.getMessage());
+        } finally {
+            ids.forEach(id -> loaded.remove(new Pending(kind, id)));
+        }
+    }
+    
+    private void deliver(List<Long> ids) {
+        LocalDateTime now = utc(Instant.now());
+        List<Object> args = new ArrayList<>(ids);
+        Collections.addAll(args, now, now, now, now);
+        
+        List<Delivered> delivered = transactionTemplate.execute(status -> {
+            List<Delivered> rows = jdbcTemplate.query(DELIVER.formatted(placeholders(ids.size())),
+                this::toDelivered, args.toArray());
+            
+            // Transaction-aware cache and pushes: applied after commit
+            Map<Long, List<NotificationDTO>> byUser = rows.stream().collect(Collectors.groupingBy(
+                Delivered::userId, LinkedHashMap::new,
+                Collectors.mapping(Delivered::notification, Collectors.toList())));
+            Cache unreadCounts = cacheManager.getCache(CacheConfig.UNREAD_COUNTS);
+            byUser.forEach((userId, notifications) -> {
+                if (unreadCounts != null) {
+                    unreadCounts.evict(userId);
+                }
+                notificationStreamService.publishCreated(userId, notifications);
+            });
+            return rows;
+        });
+        
+        if (delivered != null && !delivered.isEmpty()) {
+            deliveredCounter.increment(delivered.size());
+            delivered.stream()
+                .filter(row -> row.expiresAt() != null)
+                .forEach(row -> addIfLoaded(new Pending(Kind.EXPIRE, row.notification().id()), row.expiresAt()));
+        }
+    }
+    
+    private void expire(List<Long> ids) {
+        List<Object> args = new ArrayList<>(ids);
+        args.add(utc(Instant.now()));
+        
+        Integer expired = transactionTemplate.execute(status -> {
+            Map<Long, List<Long>> deleted = new LinkedHashMap<>();
+            RowCallbackHandler collect = rs ->
+                deleted.computeIfAbsent(rs.getLong("user_id"), userId -> new ArrayList<>()).add(rs.getLong("id"));
+            jdbcTemplate.query(EXPIRE.formatted(placeholders(ids.size())), collect, args.toArray());
+            
+            // Clients drop the rows (notification-deleted), then get the new unread count
+            Cache unreadCounts = cacheManager.getCache(CacheConfig.UNREAD_COUNTS);
+            deleted.forEach((userId, notificationIds) -> {
+                if (unreadCounts != null) {
+                    unreadCounts.evict(userId);
+                }
+                notificationStreamService.publishDeleted(userId, notificationIds);
+            });
+            return deleted.values().stream().mapToInt(List::size).sum();
+        });
+        
+        if (expired != null && expired > 0) {
+            expiredCounter.increment(expired);
+        }
+    }
+    
+    private Delivered toDelivered(ResultSet rs, int rowNum) throws SQLException {
+        return new Delivered(
+            rs.getLong("user_id"),
+            new NotificationDTO(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("message"),
+                rs.getString("type"),
+                rs.getString("priority"),
+                rs.getBoolean("is_read"),
+                rs.getString("action_url"),
+                instant(rs, "created_at"),
+                rs.getInt("occurrences"),
+                instant(rs, "last_occurred_at")
+            ),
+            instant(rs, "expires_at")
+        );
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+    
+    private static Instant instant(ResultSet rs, int column) throws SQLException {
+        return rs.getObject(column, LocalDateTime.class).toInstant(ZoneOffset.UTC);
+    }
+    
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+        return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+    }
+}
@@ -1,20 +1,45 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.config.CacheConfig;
+import com.smartsolutions.hub.dto.BulkNotificationResult;
+import com.smartsolutions.hub.dto.CursorPage;
 import com.smartsolutions.hub.dto.NotificationDTO;
 import com.smartsolutions.hub.model.Notification;
 import com.smartsolutions.hub.repository.NotificationRepository;
+import com.smartsolutions.hub.security.ParsedAccessToken;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_REPLAY = 100;
+    
     private final NotificationRepository notificationRepository;
+    private final NotificationStreamService notificationStreamService;
+    
+    /**
+     * Ids come from pooled sequences and created_at from each transaction, so neither follows commit
+     * order: a resume replays from this long before the Last-Event-ID and the client drops repeats
+     */
+    @Value("${hub.notifications.stream.replay-overlap:1m}")
+    private Duration replayOverlap;
     
     public Page<NotificationDTO> getUserNotifications(Long userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
@@ -22,7 +47,56 @@ public class NotificationService {
             .map(this::toDTO);
     }
     
+    /**
+     * Keyset pagination: newest first, starting after the given cursor (null = first page)
+     * Fetches one extra row to know whether a next page exists, never counts
+     */
+    public CursorPage<NotificationDTO> getUserNotificationsAfter(Long userId, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        
+        List<Notification> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findLatest(userId, fetch);
+        } else {
+            NotificationCursor after = NotificationCursor.decode(cursor);
+            rows = notificationRepository.findOlderThan(userId, after.createdAt(), after.id(), fetch);
+        }
+        
+        boolean hasMore = rows.size() > limit;
+        List<Notification> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = page.get(page.size() - 1);
+            nextCursor = new NotificationCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(page.stream().map(this::toDTO).toList(), nextCursor);
+    }
+    
+    /**
+     * Open a push stream; with a Last-Event-ID, first replays the notifications created since
+     * The replay is read once the stream is registered (see NotificationStreamService.subscribe).
+     * Not transactional: each repository read returns its connection before the emitter is returned.
+     */
+    public SseEmitter openStream(Long userId, Long lastEventId, ParsedAccessToken accessToken) {
+        return notificationStreamService.subscribe(userId, accessToken, () -> {
+            if (lastEventId == null) {
+                return NotificationStreamService.Replay.NONE;
+            }
+            Optional<Instant> lastCreatedAt = notificationRepository.findCreatedAt(userId, lastEventId);
+            if (lastCreatedAt.isEmpty()) {
+                // Last seen notification deleted or expired: no anchor, the client reloads
+                return new NotificationStreamService.Replay(List.of(), true);
+            }
+            List<Notification> missed = notificationRepository.findCreatedSince(
+                userId, lastCreatedAt.get().minus(replayOverlap), PageRequest.of(0, MAX_REPLAY + 1));
+            boolean truncated = missed.size() > MAX_REPLAY;
+            return new NotificationStreamService.Replay(missed.stream().map(this::toDTO).toList(), truncated);
+        });
+    }
+    
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_COUNTS, key = "#userId")
     public NotificationDTO markAsRead(Long notificationId, Long userId) {
         Notification notification = notificationRepository.findById(notificationId)
             .orElseThrow(() -> new RuntimeException("Notification not found"));
@@ -33,11 +107,52 @@ public class NotificationService {
         
         notification.setIsRead(true);
         Notification saved = notificationRepository.save(notification);
+        notificationStreamService.publishUnreadCount(userId);
         return toDTO(saved);
     }
     
+    /**
+     * Mark the given notifications read with one UPDATE; ids owned by other users are skipped
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_COUNTS, key = "#userId")
+    public BulkNotificationResult markAsRead(Collection<Long> notificationIds, Long userId) {
+        return bulkResult(userId, notificationRepository.markRead(userId, notificationIds));
+    }
+    
+    /**
+     * Mark every notification created before the given instant read (null = now)
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_COUNTS, key = "#userId")
+    public BulkNotificationResult markAllAsRead(Instant before, Long userId) {
+        Instant cutoff = before != null ? before : Instant.now();
+        return bulkResult(userId, notificationRepository.markAllReadBefore(userId, cutoff));
+    }
+    
+    /**
+     * Delete the given notifications with one DELETE; ids owned by other users are skipped
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_COUNTS, key = "#userId")
+    public BulkNotificationResult delete(Collection<Long> notificationIds, Long userId) {
+        return bulkResult(userId, notificationRepository.deleteOwned(userId, notificationIds));
+    }
+    
+    /**
+     * The counter was already adjusted by the statement's trigger, in this transaction
+     */
+    private BulkNotificationResult bulkResult(Long userId, int affected) {
+        if (affected > 0) {
+            notificationStreamService.publishUnreadCount(userId);
+        }
+        return new BulkNotificationResult(affected, notificationRepository.findUnreadCount(userId));
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.UNREAD_COUNTS, key = "#userId")
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsRead(userId, false);
+        // Materialized by triggers (see V11), no COUNT over notifications
+        return notificationRepository.findUnreadCount(userId);
     }
     
     private NotificationDTO toDTO(Notification notification) {
@@ -49,7 +164,9 @@ public class NotificationService {
             notification.getPriority(),
             notification.getIsRead(),
             notification.getActionUrl(),
-            notification.getCreatedAt()
+            notification.getCreatedAt(),
+            notification.getOccurrences(),
+            notification.getLastOccurredAt()
         );
     }
 }
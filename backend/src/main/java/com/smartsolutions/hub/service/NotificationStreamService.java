@@ -0,0 +1,446 @@
+package com.smartsolutions.hub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsolutions.hub.dto.NotificationDTO;
+import com.smartsolutions.hub.exception.ServiceUnavailableException;
+import com.smartsolutions.hub.repository.NotificationRepository;
+import com.smartsolutions.hub.security.AuthorizationVersionService;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.TokenRevocationService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Notification Stream Service
+ * Keeps the open /notifications/stream connections of this node and pushes new notifications
+ * and unread-count changes to them. Events are published on the hub:notifications:events Redis
+ * channel and delivered by whichever node holds the user's connections (including this one).
+ * Connections are async servlet requests: an idle stream holds a socket, not a thread.
+ * Each stream remembers the access token it was opened with and is closed once that token is
+ * revoked (logout, lock, password reset) or its role and sites are stale.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationStreamService implements MessageListener, SmartLifecycle {
+    
+    private static final String CHANNEL = "hub:notifications:events";
+    private static final String BROADCAST_CHANNEL = "hub:notifications:broadcasts";
+    static final String NOTIFICATION_EVENT = "notification";
+    static final String NOTIFICATION_UPDATED_EVENT = "notification-updated";
+    static final String NOTIFICATION_DELETED_EVENT = "notification-deleted";
+    static final String UNREAD_COUNT_EVENT = "unread-count";
+    static final String RESYNC_EVENT = "resync";
+    
+    private final NotificationRepository notificationRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final AuthorizationVersionService authorizationVersionService;
+    
+    @Value("${hub.notifications.stream.timeout:30m}")
+    private Duration timeout;
+    
+    @Value("${hub.notifications.stream.max-reconnect-delay:5s}")
+    private Duration maxReconnectDelay;
+    
+    /**
+     * user id -> open streams on this node
+     */
+    private final ConcurrentHashMap<Long, Set<Stream>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this,
+            List.of(new ChannelTopic(CHANNEL), new ChannelTopic(BROADCAST_CHANNEL)));
+        Gauge.builder("notifications.stream.connections", connections, AtomicInteger::get)
+            .description("Open notification streams on this node")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Open a stream for the user, replaying what was missed since Last-Event-ID
+     * The stream is registered before the replay is read, so nothing committed in between is lost:
+     * live events are held back until the replay is sent, and those it already contains are dropped.
+     * A replay longer than the limit is replaced by a resync event: the client reloads the list.
+     * Must not run in a transaction (open-in-view is off): the open stream then holds no connection.
+     */
+    public SseEmitter subscribe(Long userId, ParsedAccessToken token, Supplier<Replay> replay) {
+        if (!running) {
+            throw new ServiceUnavailableException("Server is shutting down. Please reconnect.");
+        }
+        
+        Stream stream = new Stream(new SseEmitter(timeout.toMillis()), token);
+        SseEmitter emitter = stream.emitter;
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(stream);
+        connections.incrementAndGet();
+        
+        Runnable unregister = () -> remove(userId, stream);
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unregister.run());
+        
+        Replay missed;
+        try {
+            missed = replay.get();
+        } catch (RuntimeException e) {
+            remove(userId, stream);
+            emitter.complete();
+            throw e;
+        }
+        
+        try {
+            if (missed.truncated()) {
+                emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+            } else {
+                for (NotificationDTO notification : missed.notifications()) {
+                    emitter.send(SseEmitter.event()
+                        .id(String.valueOf(notification.id()))
+                        .name(NOTIFICATION_EVENT)
+                        .data(objectMapper.writeValueAsString(notification)));
+                }
+            }
+            emitter.send(SseEmitter.event()
+                .name(UNREAD_COUNT_EVENT)
+                .data(String.valueOf(notificationRepository.findUnreadCount(userId))));
+            stream.goLive(missed.notifications().stream()
+                .map(notification -> String.valueOf(notification.id()))
+                .collect(Collectors.toSet()));
+        } catch (Exception e) {
+            remove(userId, stream);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+    
+    private void remove(Long userId, Stream stream) {
+        subscribers.computeIfPresent(userId, (id, streams) -> {
+            if (streams.remove(stream)) {
+                connections.decrementAndGet();
+            }
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+    
+    /**
+     * Push new notifications to the user's streams once the current transaction commits,
+     * followed by a single unread-count event
+     */
+    public void publishCreated(Long userId, List<NotificationDTO> notifications) {
+        afterCommit(() -> {
+            publishAll(userId, NOTIFICATION_EVENT, notifications);
+            publishUnreadCountNow(userId);
+        });
+    }
+    
+    /**
+     * Push notifications that changed in place (coalesced repeats) once the current transaction
+     * commits. No event id: the client's Last-Event-ID must not move back to an older notification.
+     */
+    public void publishUpdated(Long userId, List<NotificationDTO> notifications) {
+        afterCommit(() -> publishAll(userId, NOTIFICATION_UPDATED_EVENT, notifications));
+    }
+    
+    /**
+     * Tell the user's streams that notifications were deleted (data: the notification id) once the
+     * current transaction commits, followed by a single unread-count event
+     */
+    public void publishDeleted(Long userId, List<Long> notificationIds) {
+        afterCommit(() -> {
+            notificationIds.forEach(id -> publish(userId, NOTIFICATION_DELETED_EVENT, "", String.valueOf(id)));
+            publishUnreadCountNow(userId);
+        });
+    }
+    
+    private void publishAll(Long userId, String event, List<NotificationDTO> notifications) {
+        for (NotificationDTO notification : notifications) {
+            try {
+                String eventId = NOTIFICATION_EVENT.equals(event) ? String.valueOf(notification.id()) : "";
+                publish(userId, event, eventId, objectMapper.writeValueAsString(notification));
+            } catch (Exception e) {
+                log.warn("Could not serialize notification {} for streaming: {}", notification.id(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Push one notification fanned out to many users (user id -> id of their copy) once the
+     * current transaction commits. Sent as a single message with every recipient's unread count,
+     * instead of two messages per recipient.
+     */
+    public void publishBroadcast(NotificationDTO notification, Map<Long, Long> notificationIds) {
+        afterCommit(() -> {
+            Map<Long, Long> unreadCounts = new HashMap<>();
+            notificationRepository.findUnreadCounts(notificationIds.keySet())
+                .forEach(row -> unreadCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            
+            List<BroadcastRecipient> recipients = notificationIds.entrySet().stream()
+                .map(entry -> new BroadcastRecipient(
+                    entry.getKey(), entry.getValue(), unreadCounts.getOrDefault(entry.getKey(), 0L)))
+                .toList();
+            BroadcastEvent event = new BroadcastEvent(notification, recipients);
+            try {
+                redisTemplate.convertAndSend(BROADCAST_CHANNEL, objectMapper.writeValueAsString(event));
+            } catch (Exception e) {
+                log.warn("Could not publish broadcast to Redis, delivering locally only: {}", e.getMessage());
+                deliverBroadcast(event);
+            }
+        });
+    }
+    
+    /**
+     * Push the user's unread count once the current transaction commits (counter read after commit)
+     */
+    public void publishUnreadCount(Long userId) {
+        afterCommit(() -> publishUnreadCountNow(userId));
+    }
+    
+    private void publishUnreadCountNow(Long userId) {
+        try {
+            publish(userId, UNREAD_COUNT_EVENT, "", String.valueOf(notificationRepository.findUnreadCount(userId)));
+        } catch (Exception e) {
+            log.warn("Could not read unread count for user {}: {}", userId, e.getMessage());
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * Send to every node; delivered locally when Redis is unavailable
+     */
+    private void publish(Long userId, String event, String eventId, String data) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, userId + "|" + event + "|" + eventId + "|" + data);
+        } catch (Exception e) {
+            log.warn("Could not publish {} event to Redis, delivering locally only: {}", event, e.getMessage());
+            deliver(userId, event, eventId, data);
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (BROADCAST_CHANNEL.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+            try {
+                deliverBroadcast(objectMapper.readValue(message.getBody(), BroadcastEvent.class));
+            } catch (Exception e) {
+                log.warn("Malformed broadcast event ignored: {}", e.getMessage());
+            }
+            return;
+        }
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4) {
+            return;
+        }
+        try {
+            deliver(Long.parseLong(parts[0]), parts[1], parts[2], parts[3]);
+        } catch (NumberFormatException e) {
+            log.warn("Malformed notification event ignored");
+        }
+    }
+    
+    private void deliver(Long userId, String event, String eventId, String data) {
+        Set<Stream> streams = subscribers.get(userId);
+        if (streams == null) {
+            return;
+        }
+        streams.forEach(stream -> send(userId, stream, eventId, () -> {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event).data(data);
+            return eventId.isEmpty() ? builder : builder.id(eventId);
+        }));
+    }
+    
+    /**
+     * Deliver to the recipients connected to this node; each gets its own copy's id
+     */
+    private void deliverBroadcast(BroadcastEvent event) {
+        NotificationDTO template = event.notification();
+        for (BroadcastRecipient recipient : event.recipients()) {
+            if (!subscribers.containsKey(recipient.userId())) {
+                continue;
+            }
+            NotificationDTO copy = new NotificationDTO(
+                recipient.notificationId(),
+                template.title(),
+                template.message(),
+                template.type(),
+                template.priority(),
+                template.isRead(),
+                template.actionUrl(),
+                template.createdAt(),
+                template.occurrences(),
+                template.lastOccurredAt()
+            );
+            try {
+                String data = objectMapper.writeValueAsString(copy);
+                deliver(recipient.userId(), NOTIFICATION_EVENT, String.valueOf(copy.id()), data);
+            } catch (Exception e) {
+                log.warn("Could not serialize broadcast notification {}: {}", copy.id(), e.getMessage());
+            }
+            deliver(recipient.userId(), UNREAD_COUNT_EVENT, "", String.valueOf(recipient.unreadCount()));
+        }
+    }
+    
+    /**
+     * A builder accumulates its output on every build(), so each emitter gets a fresh one
+     */
+    private void send(Long userId, Stream stream, String eventId, Supplier<SseEmitter.SseEventBuilder> event) {
+        if (stream.holdBack(eventId, event)) {
+            return;
+        }
+        try {
+            stream.emitter.send(event.get());
+        } catch (Exception e) {
+            // Client went away: completion callbacks may never fire for a dead socket
+            remove(userId, stream);
+            stream.emitter.completeWithError(e);
+        }
+    }
+    
+    /**
+     * Comment line on every stream so proxies keep idle connections open and dead ones are found
+     * Streams whose token was revoked or whose authorization is stale are closed instead: the
+     * client reconnects, gets 401 and goes through the token refresh.
+     */
+    @Scheduled(fixedDelayString = "${hub.notifications.stream.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, streams) -> streams.forEach(stream -> {
+            if (stream.token != null && (tokenRevocationService.isRevoked(stream.token)
+                    || authorizationVersionService.isStale(stream.token))) {
+                remove(userId, stream);
+                stream.emitter.complete();
+            } else {
+                send(userId, stream, "", () -> SseEmitter.event().comment("heartbeat"));
+            }
+        }));
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+    }
+    
+    /**
+     * Drain before the web server's graceful shutdown: every client is told to reconnect after
+     * a random delay (so they spread over the remaining nodes) and its stream is closed
+     */
+    @Override
+    public void stop() {
+        running = false;
+        int drained = 0;
+        for (var entry : subscribers.entrySet()) {
+            for (Stream stream : entry.getValue()) {
+                long delay = ThreadLocalRandom.current().nextLong(500, Math.max(maxReconnectDelay.toMillis(), 501));
+                send(entry.getKey(), stream, "", () -> SseEmitter.event().reconnectTime(delay).comment("shutdown"));
+                stream.emitter.complete();
+                drained++;
+            }
+        }
+        subscribers.clear();
+        connections.set(0);
+        log.info("Drained {} notification streams", drained);
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Notifications missed since Last-Event-ID; truncated when there were more than the replay limit
+     */
+    public record Replay(List<NotificationDTO> notifications, boolean truncated) {
+        
+        public static final Replay NONE = new Replay(List.of(), false);
+    }
+    
+    /**
+     * One open stream and the token it was opened with (null for the mock login)
+     * Until its replay is sent, live events are held back in arrival order.
+     */
+    private static final class Stream {
+        
+        private record HeldEvent(String eventId, Supplier<SseEmitter.SseEventBuilder> event) {}
+        
+        final SseEmitter emitter;
+        final ParsedAccessToken token;
+        private List<HeldEvent> held = new ArrayList<>();
+        
+        Stream(SseEmitter emitter, ParsedAccessToken token) {
+            this.emitter = emitter;
+            this.token = token;
+        }
+        
+        /**
+         * Keep the event for later if the replay has not been sent yet
+         */
+        synchronized boolean holdBack(String eventId, Supplier<SseEmitter.SseEventBuilder> event) {
+            if (held == null) {
+                return false;
+            }
+            held.add(new HeldEvent(eventId, event));
+            return true;
+        }
+        
+        /**
+         * Send the held events, skipping notifications the replay already sent, then send directly
+         */
+        synchronized void goLive(Set<String> replayedIds) throws IOException {
+            List<HeldEvent> pending = held;
+            held = null;
+            for (HeldEvent heldEvent : pending) {
+                if (!replayedIds.contains(heldEvent.eventId())) {
+                    emitter.send(heldEvent.event().get());
+                }
+            }
+        }
+    }
+    
+    record BroadcastRecipient(long userId, long notificationId, long unreadCount) {}
+    
+    record BroadcastEvent(NotificationDTO notification, List<BroadcastRecipient> recipients) {}
+}
@@ -0,0 +1,183 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import com.smartsolutions.hub.exception.ServiceUnavailableException;
+import com.smartsolutions.hub.security.PasswordHashPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password Hashing Service
+ * Runs password hashing and verification on a dedicated, bounded thread pool, so the CPU spent
+ * on BCrypt is capped at the pool size whatever the login rate. It bounds CPU, not request
+ * threads: a caller still waits for its job, up to the timeout, so callers must not hold a
+ * transaction or a database connection around these methods.
+ * When the queue is full, callers fail fast with 503 instead of waiting. A job that times out
+ * keeps running to completion (BCrypt does not check interruption); only its result is dropped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingService {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashPolicy passwordHashPolicy;
+    private final HubSecurityProperties securityProperties;
+    private final MeterRegistry meterRegistry;
+    
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejectedCounter;
+    private Counter rehashCounter;
+    
+    @PostConstruct
+    public void init() {
+        HubSecurityProperties.PasswordHashing config = securityProperties.getPasswordHashing();
+        
+        this.executor = new ThreadPoolExecutor(
+            config.getThreads(),
+            config.getThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getQueueCapacity()),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        
+        this.encodeTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "encode")
+            .description("Time spent hashing passwords")
+            .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "matches")
+            .description("Time spent verifying passwords")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+            .description("Hashing requests rejected because the queue was full or timed out")
+            .register(meterRegistry);
+        this.rehashCounter = Counter.builder("auth.password.rehashed")
+            .description("Stored hashes upgraded to the current algorithm and cost on login")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.cost", passwordHashPolicy, PasswordHashPolicy::bcryptCost)
+            .description("BCrypt cost used for new hashes")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+            .description("Hashing jobs waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Hashing jobs currently running")
+            .register(meterRegistry);
+        
+        log.info("Password hashing executor started (threads: {}, queue: {})",
+            config.getThreads(), config.getQueueCapacity());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Hash a raw password
+     */
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+    
+    /**
+     * Check a raw password against a stored hash
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        return submit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+    
+    /**
+     * Whether a stored hash uses another algorithm or a lower cost and should be replaced
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordHashPolicy.isOffTarget(encodedPassword);
+    }
+    
+    /**
+     * Hash a password again after a successful login, when its stored hash is off target
+     * Returns the new hash, or the stored one if it is already on (or above) target
+     */
+    public String rehashIfNeeded(CharSequence rawPassword, String encodedPassword) {
+        if (!needsRehash(encodedPassword)) {
+            return encodedPassword;
+        }
+        log.debug("Rehashing password (stored cost: {}, target cost: {})",
+            PasswordHashPolicy.costOf(encodedPassword), passwordHashPolicy.bcryptCost());
+        rehashCounter.increment();
+        return encode(rawPassword);
+    }
+    
+    /**
+     * Run a hashing job on the dedicated pool and wait for its result
+     */
+    private <T> T submit(Callable<T> job) {
+        Future<T> future;
+        try {
+            future = executor.submit(job);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full, rejecting request");
+            throw new ServiceUnavailableException("Authentication service is busy. Please retry shortly.");
+        }
+        
+        try {
+            return future.get(securityProperties.getPasswordHashing().getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Authentication service is busy. Please retry shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Named daemon threads for the hashing pool
+     */
+    private static class HashingThreadFactory implements ThreadFactory {
+        
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
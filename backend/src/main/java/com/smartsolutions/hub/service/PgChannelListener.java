@@ -0,0 +1,150 @@
+package com.smartsolutions.hub.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Postgres Channel Listener
+ * LISTENs to the channels that triggers announce changes on with pg_notify, so writes made
+ * outside the application (admin tools, SQL) reach every node; Postgres delivers a notification
+ * only once the writing transaction commits. Uses one dedicated connection outside the pool and
+ * one thread. Notifications sent while the connection is down are lost, so each subscriber's
+ * resync callback runs every time the LISTEN is (re)established, the first time included.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PgChannelListener implements SmartLifecycle {
+    
+    private record Subscription(Consumer<String> handler, Runnable resync) {}
+    
+    private final DataSourceProperties dataSourceProperties;
+    
+    @Value("${hub.db-events.poll-timeout:5s}")
+    private Duration pollTimeout;
+    
+    @Value("${hub.db-events.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+    
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    
+    private volatile boolean running;
+    private Thread listener;
+    
+    /**
+     * Register a handler for the payloads of a channel; call it from @PostConstruct, before start
+     * The channel name is used as an SQL identifier: lower case letters and underscores only
+     */
+    public void subscribe(String channel, Consumer<String> handler, Runnable resync) {
+        if (!channel.matches("[a-z_]+")) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        subscriptions.put(channel, new Subscription(handler, resync));
+    }
+    
+    @Override
+    public void start() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "pg-channel-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            try {
+                listener.join(pollTimeout.toMillis() + 1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscriptions.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                log.info("Listening to database channels {}", subscriptions.keySet());
+                subscriptions.values().forEach(this::resync);
+                
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Database channel listener disconnected, reconnecting in {}: {}",
+                        reconnectDelay, e.getMessage());
+                    pause();
+                }
+            }
+        }
+    }
+    
+    private void dispatch(PGNotification notification) {
+        Subscription subscription = subscriptions.get(notification.getName());
+        if (subscription == null) {
+            return;
+        }
+        try {
+            subscription.handler().accept(notification.getParameter());
+        } catch (Exception e) {
+            log.warn("Handler for database channel {} failed: {}", notification.getName(), e.getMessage());
+        }
+    }
+    
+    private void resync(Subscription subscription) {
+        try {
+            subscription.resync().run();
+        } catch (Exception e) {
+            log.warn("Resync after (re)connecting to the database channels failed: {}", e.getMessage());
+        }
+    }
+    
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
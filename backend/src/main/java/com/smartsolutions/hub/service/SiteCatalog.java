@@ -0,0 +1,116 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.dto.SiteDTO;
+import com.smartsolutions.hub.dto.SiteDetailsDTO;
+import com.smartsolutions.hub.model.Site;
+import com.smartsolutions.hub.security.SiteSet;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Site Catalog
+ * Immutable snapshot of the sites table with indexes by id, status and location.
+ * Holds immutable copies (SiteDetailsDTO), never the entities, so callers cannot change a shared site.
+ * A new snapshot is built on every reload and swapped in atomically by SiteService,
+ * so readers never lock and always see a consistent catalog.
+ */
+public final class SiteCatalog {
+    
+    private final long version;
+    private final List<SiteDetailsDTO> all;
+    private final Map<Long, SiteDetailsDTO> byId;
+    private final Map<Long, SiteDTO> dtoById;
+    private final Map<String, List<SiteDetailsDTO>> byStatus;
+    private final Map<String, List<SiteDetailsDTO>> byLocation;
+    
+    SiteCatalog(long version, Collection<Site> sites) {
+        this.version = version;
+        this.all = sites.stream()
+            .sorted(Comparator.comparing(Site::getId))
+            .map(SiteDetailsDTO::from)
+            .toList();
+        this.byId = all.stream()
+            .collect(Collectors.toUnmodifiableMap(SiteDetailsDTO::id, Function.identity()));
+        this.dtoById = all.stream()
+            .collect(Collectors.toUnmodifiableMap(SiteDetailsDTO::id, site -> new SiteDTO(
+                site.id(),
+                site.name(),
+                site.location(),
+                site.status()
+            )));
+        this.byStatus = index(all, SiteDetailsDTO::status);
+        this.byLocation = index(all, SiteDetailsDTO::location);
+    }
+    
+    static SiteCatalog empty() {
+        return new SiteCatalog(0, List.of());
+    }
+    
+    private static Map<String, List<SiteDetailsDTO>> index(
+            List<SiteDetailsDTO> sites,
+            Function<SiteDetailsDTO, String> key) {
+        return sites.stream()
+            .filter(site -> key.apply(site) != null)
+            .collect(Collectors.collectingAndThen(
+                Collectors.groupingBy(key, Collectors.toUnmodifiableList()),
+                Map::copyOf));
+    }
+    
+    public long version() {
+        return version;
+    }
+    
+    public List<SiteDetailsDTO> all() {
+        return all;
+    }
+    
+    public SiteDetailsDTO get(Long id) {
+        return id != null ? byId.get(id) : null;
+    }
+    
+    public List<SiteDetailsDTO> byStatus(String status) {
+        return byStatus.getOrDefault(status, List.of());
+    }
+    
+    public List<SiteDetailsDTO> byLocation(String location) {
+        return byLocation.getOrDefault(location, List.of());
+    }
+    
+    /**
+     * Sites for the given ids, in the given order; unknown ids are skipped
+     */
+    public List<SiteDetailsDTO> byIds(Collection<Long> ids) {
+        return ids.stream()
+            .distinct()
+            .map(this::get)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+    
+    /**
+     * Prebuilt DTOs of the sites in a token's site set, by ascending id
+     * Walks whichever side is smaller: the set's ids, or the catalog filtered with contains
+     */
+    public List<SiteDTO> dtosIn(SiteSet sites) {
+        if (sites.size() < all.size()) {
+            return sites.stream()
+                .mapToObj(dtoById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        }
+        return all.stream()
+            .filter(site -> sites.contains(site.id()))
+            .map(site -> dtoById.get(site.id()))
+            .toList();
+    }
+    
+    public int size() {
+        return all.size();
+    }
+}
@@ -1,72 +1,120 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.dto.SiteDTO;
+import com.smartsolutions.hub.dto.SiteDetailsDTO;
 import com.smartsolutions.hub.exception.ResourceNotFoundException;
-import com.smartsolutions.hub.model.Site;
 import com.smartsolutions.hub.repository.SiteRepository;
+import com.smartsolutions.hub.security.SiteSet;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Site Service
  * Handles business logic for construction sites
+ * Reads are served from an in-memory SiteCatalog snapshot (no database access, no locks).
+ * The snapshot is rebuilt when the sites trigger (see V18) announces a committed change on the hub_sites
+ * channel, whoever wrote it, and periodically as a safety net.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SiteService {
     
+    private static final String CHANNEL = "hub_sites";
+    
     private final SiteRepository siteRepository;
+    private final PgChannelListener pgChannelListener;
+    private final MeterRegistry meterRegistry;
+    
+    private final AtomicReference<SiteCatalog> catalog = new AtomicReference<>(SiteCatalog.empty());
+    private final AtomicLong versions = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        reload();
+        pgChannelListener.subscribe(CHANNEL, payload -> reload(), this::reload);
+        Gauge.builder("sites.catalog.size", catalog, ref -> ref.get().size())
+            .description("Sites in the in-memory catalog")
+            .register(meterRegistry);
+        Gauge.builder("sites.catalog.version", catalog, ref -> ref.get().version())
+            .description("Version of the in-memory site catalog")
+            .register(meterRegistry);
+    }
     
     /**
      * Get all sites
      */
-    @Transactional(readOnly = true)
-    public List<Site> getAllSites() {
-        log.debug("Getting all sites");
-        return siteRepository.findAll();
+    public List<SiteDetailsDTO> getAllSites() {
+        return catalog.get().all();
     }
     
     /**
      * Get all active sites
      */
-    @Transactional(readOnly = true)
-    public List<Site> getActiveSites() {
-        log.debug("Getting all active sites");
-        return siteRepository.findByStatus("active");
+    public List<SiteDetailsDTO> getActiveSites() {
+        return catalog.get().byStatus("active");
     }
     
     /**
      * Get site by ID
      */
-    @Transactional(readOnly = true)
-    public Site getSiteById(Long id) {
-        log.debug("Getting site by id: {}", id);
-        return siteRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Site not found with id: " + id));
+    public SiteDetailsDTO getSiteById(Long id) {
+        SiteDetailsDTO site = catalog.get().get(id);
+        if (site == null) {
+            throw new ResourceNotFoundException("Site not found with id: " + id);
+        }
+        return site;
     }
     
     /**
      * Get sites by IDs (for user's assigned sites)
      */
-    @Transactional(readOnly = true)
-    public List<Site> getSitesByIds(List<Long> ids) {
-        log.debug("Getting sites by ids: {}", ids);
+    public List<SiteDetailsDTO> getSitesByIds(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        return siteRepository.findByIdIn(ids);
+        return catalog.get().byIds(ids);
+    }
+    
+    /**
+     * Get the DTOs of the sites a user is assigned to (for /sites/me)
+     */
+    public List<SiteDTO> getSiteDTOs(SiteSet sites) {
+        if (sites == null || sites.isEmpty()) {
+            return List.of();
+        }
+        return catalog.get().dtosIn(sites);
     }
     
     /**
      * Get sites by location
      */
-    @Transactional(readOnly = true)
-    public List<Site> getSitesByLocation(String location) {
-        log.debug("Getting sites by location: {}", location);
-        return siteRepository.findByLocation(location);
+    public List<SiteDetailsDTO> getSitesByLocation(String location) {
+        return catalog.get().byLocation(location);
+    }
+    
+    /**
+     * Rebuild the catalog from the sites table and publish it
+     * On failure the current snapshot stays in place; serialized so an older read never replaces a newer one
+     */
+    @Scheduled(fixedDelayString = "${hub.sites.catalog.reload-interval-ms:300000}",
+        initialDelayString = "${hub.sites.catalog.reload-interval-ms:300000}")
+    public synchronized void reload() {
+        try {
+            SiteCatalog next = new SiteCatalog(versions.incrementAndGet(), siteRepository.findAll());
+            catalog.set(next);
+            log.debug("Site catalog reloaded (version {}, {} sites)", next.version(), next.size());
+        } catch (Exception e) {
+            log.warn("Could not reload site catalog, keeping version {}: {}", catalog.get().version(), e.getMessage());
+        }
     }
 }
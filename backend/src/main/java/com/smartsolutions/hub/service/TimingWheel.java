@@ -0,0 +1,107 @@
+package com.smartsolutions.hub.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel
+ * Level 0 has wheelSize buckets of one tick; each level above has buckets as wide as the whole
+ * level below, so adding a timer and advancing the clock cost O(1) per timer whatever its delay.
+ * When the clock reaches an upper-level bucket, its timers are cascaded one level down. A timer
+ * fires on the first tick after its deadline. Not thread-safe: callers synchronize.
+ */
+final class TimingWheel<T> {
+    
+    private record Timer<T>(long deadline, T item) {}
+    
+    private final long tickMs;
+    private final int wheelSize;
+    // levels.get(level).get(bucket), upper levels created when a deadline needs them
+    private final List<List<List<Timer<T>>>> levels = new ArrayList<>();
+    private final List<Long> spans = new ArrayList<>();
+    
+    private long currentTime;
+    private int size;
+    
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - startMs % tickMs;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * False when the deadline already passed: the caller fires the timer itself
+     */
+    boolean add(long deadline, T item) {
+        if (deadline < currentTime) {
+            return false;
+        }
+        place(new Timer<>(deadline, item));
+        size++;
+        return true;
+    }
+    
+    /**
+     * Move the clock up to now and return the items of the timers that fired
+     */
+    List<T> advance(long now) {
+        List<T> due = new ArrayList<>();
+        while (currentTime + tickMs <= now) {
+            currentTime += tickMs;
+            // Level 0 first: the bucket of the tick that just ended
+            drain(0, (currentTime - tickMs) / tickMs, timer -> due.add(timer.item()));
+            // Then the upper buckets starting now, top-down so timers can fall several levels
+            for (int level = levels.size() - 1; level > 0; level--) {
+                long span = spans.get(level);
+                if (currentTime % span == 0) {
+                    drain(level, currentTime / span, this::place);
+                }
+            }
+        }
+        size -= due.size();
+        return due;
+    }
+    
+    /**
+     * Lowest level whose wheel still reaches the deadline
+     */
+    private void place(Timer<T> timer) {
+        for (int level = 0; ; level++) {
+            long span = span(level);
+            if (timer.deadline() / span - currentTime / span < wheelSize) {
+                levels.get(level).get((int) (timer.deadline() / span % wheelSize)).add(timer);
+                return;
+            }
+        }
+    }
+    
+    private void drain(int level, long slot, Consumer<Timer<T>> action) {
+        if (levels.size() <= level) {
+            return;
+        }
+        List<List<Timer<T>>> buckets = levels.get(level);
+        int index = (int) (slot % wheelSize);
+        List<Timer<T>> bucket = buckets.get(index);
+        if (!bucket.isEmpty()) {
+            buckets.set(index, new ArrayList<>());
+            bucket.forEach(action);
+        }
+    }
+    
+    private long span(int level) {
+        while (levels.size() <= level) {
+            List<List<Timer<T>>> buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            spans.add(levels.isEmpty() ? tickMs : spans.get(spans.size() - 1) * wheelSize);
+            levels.add(buckets);
+        }
+        return spans.get(level);
+    }
+}
@@ -1,10 +1,13 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.config.CacheConfig;
 import com.smartsolutions.hub.dto.CreateToolRequest;
 import com.smartsolutions.hub.dto.ToolDTO;
 import com.smartsolutions.hub.model.Tool;
 import com.smartsolutions.hub.repository.ToolRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +19,7 @@ public class ToolService {
     
     private final ToolRepository toolRepository;
     
+    @Cacheable(cacheNames = CacheConfig.TOOLS, key = "#userId")
     public List<ToolDTO> getUserTools(Long userId) {
         return toolRepository.findByUserIdOrderByDisplayOrder(userId)
             .stream()
@@ -24,6 +28,7 @@ public class ToolService {
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TOOLS, key = "#userId")
     public ToolDTO createTool(Long userId, CreateToolRequest request) {
         List<Tool> existingTools = toolRepository.findByUserIdOrderByDisplayOrder(userId);
         int nextOrder = existingTools.isEmpty() ? 0 : existingTools.size();
@@ -41,6 +46,7 @@ public class ToolService {
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TOOLS, key = "#userId")
     public void deleteTool(Long toolId, Long userId) {
         Tool tool = toolRepository.findById(toolId)
             .orElseThrow(() -> new RuntimeException("Tool not found"));
@@ -53,6 +59,7 @@ public class ToolService {
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TOOLS, key = "#userId")
     public List<ToolDTO> updateToolsOrder(Long userId, List<Long> toolIds) {
         List<Tool> tools = toolRepository.findByUserIdOrderByDisplayOrder(userId);
         
@@ -1,10 +1,13 @@
 package com.smartsolutions.hub.service;
 
+import com.smartsolutions.hub.config.CacheConfig;
 import com.smartsolutions.hub.dto.UserPreferencesDTO;
 import com.smartsolutions.hub.model.UserPreferences;
 import com.smartsolutions.hub.repository.UserPreferencesRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +26,7 @@ public class UserPreferencesService {
      * Returns empty preferences if not found
      */
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PREFERENCES, key = "#userId")
     public UserPreferencesDTO getUserPreferences(Long userId) {
         log.debug("Fetching preferences for user: {}", userId);
         
@@ -37,6 +41,7 @@ public class UserPreferencesService {
      * Creates new preferences if they don't exist
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PREFERENCES, key = "#userId")
     public UserPreferencesDTO updateUserPreferences(Long userId, Map<String, Object> preferences) {
         log.debug("Updating preferences for user: {}", userId);
         
@@ -56,6 +61,7 @@ public class UserPreferencesService {
      * Merge preferences (partial update)
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PREFERENCES, key = "#userId")
     public UserPreferencesDTO mergeUserPreferences(Long userId, Map<String, Object> partialPreferences) {
         log.debug("Merging preferences for user: {}", userId);
         
@@ -82,6 +88,7 @@ public class UserPreferencesService {
      * Delete user preferences
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PREFERENCES, key = "#userId")
     public void deleteUserPreferences(Long userId) {
         log.debug("Deleting preferences for user: {}", userId);
         userPreferencesRepository.deleteByUserId(userId);
@@ -1,18 +1,33 @@
 package com.smartsolutions.hub.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.smartsolutions.hub.dto.SiteDTO;
 import com.smartsolutions.hub.dto.UserDTO;
-import com.smartsolutions.hub.model.Site;
+import com.smartsolutions.hub.exception.ResourceNotFoundException;
 import com.smartsolutions.hub.model.User;
-import com.smartsolutions.hub.repository.SiteRepository;
 import com.smartsolutions.hub.repository.UserRepository;
+import com.smartsolutions.hub.security.SiteSet;
+import com.smartsolutions.hub.security.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -20,23 +35,126 @@ import java.util.Map;
 public class UserService {
     
     private final UserRepository userRepository;
-    private final SiteRepository siteRepository;
+    private final SiteService siteService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
     
-    @Transactional
-    public User getOrCreateUser(String email, String name, String role, List<Long> siteIds) {
-        log.debug("getOrCreateUser called with email={}, name={}, role={}, siteIds={}", email, name, role, siteIds);
-        return userRepository.findByEmail(email)
-            .orElseGet(() -> {
-                log.info("User not found, creating new user: {}", email);
-                User newUser = new User();
-                newUser.setEmail(email);
-                newUser.setName(name);
-                newUser.setRole(role);
-                newUser.setSiteIds(siteIds);
-                newUser.setPreferredLanguage("fr");
-                newUser.setNotificationEnabled(true);
-                return userRepository.save(newUser);
-            });
+    @Value("${hub.users.id-cache.ttl:5m}")
+    private Duration userIdCacheTtl;
+    
+    @Value("${hub.users.id-cache.max-size:10000}")
+    private long userIdCacheMaxSize;
+    
+    /**
+     * email -> user id of Azure AD users, so controllers do not hit the users table on every request
+     */
+    private Cache<String, Long> userIdCache;
+    
+    /**
+     * Provisioning lookups currently running, one per email
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> provisioning = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        this.userIdCache = Caffeine.newBuilder()
+            .expireAfterWrite(userIdCacheTtl)
+            .maximumSize(userIdCacheMaxSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdCache, "users.ids");
+    }
+    
+    /**
+     * Resolve the database id of the authenticated user
+     * Our own tokens carry the id. Azure AD tokens only carry an email: it is mapped from
+     * memory, and the user is looked up (and created if needed) only on a cache miss.
+     */
+    public Long resolveUserId(UserPrincipal principal) {
+        if (principal.id() != null) {
+            return principal.id();
+        }
+        return userIdCache.get(principal.email(), email -> provisionUser(
+            email,
+            principal.name(),
+            principal.role(),
+            principal.siteIds()
+        ));
+    }
+    
+    /**
+     * Return the id of the user with this email, creating the user if needed
+     * Concurrent callers for the same email share one in-flight lookup, and creation
+     * is an INSERT ... ON CONFLICT so racing nodes never fail on the unique email.
+     * The user and its site assignments are written in one transaction (the caller's, if any),
+     * and waiters get the id only once that transaction has committed.
+     */
+    public Long provisionUser(String email, String name, String role, List<Long> siteIds) {
+        CompletableFuture<Long> flight = new CompletableFuture<>();
+        CompletableFuture<Long> inFlight = provisioning.putIfAbsent(email, flight);
+        if (inFlight != null) {
+            return awaitProvisioning(inFlight);
+        }
+        
+        Long userId;
+        try {
+            userId = transactionTemplate.execute(status -> findOrInsertUser(email, name, role, siteIds));
+        } catch (RuntimeException e) {
+            provisioning.remove(email, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            provisioning.remove(email, flight);
+            flight.complete(userId);
+            return userId;
+        }
+        // Joined the caller's transaction: the row is visible to others only after its commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                provisioning.remove(email, flight);
+                if (status == STATUS_COMMITTED) {
+                    flight.complete(userId);
+                } else {
+                    flight.completeExceptionally(new IllegalStateException("User provisioning rolled back: " + email));
+                }
+            }
+        });
+        return userId;
+    }
+    
+    private Long findOrInsertUser(String email, String name, String role, List<Long> siteIds) {
+        Optional<Long> existingId = userRepository.findIdByEmail(email);
+        if (existingId.isPresent()) {
+            return existingId.get();
+        }
+        
+        Optional<Long> insertedId = userRepository.insertIfAbsent(email, name, role);
+        if (insertedId.isEmpty()) {
+            // Another node created the user between our lookup and insert
+            return userRepository.findIdByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + email));
+        }
+        
+        Long userId = insertedId.get();
+        if (siteIds != null) {
+            siteIds.forEach(siteId -> userRepository.insertUserSite(userId, siteId));
+        }
+        log.info("Provisioned new user: {} (id={})", email, userId);
+        return userId;
+    }
+    
+    private Long awaitProvisioning(CompletableFuture<Long> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
     
     public UserDTO toDTO(User user) {
@@ -45,37 +163,22 @@ public class UserService {
             user.getEmail(),
             user.getName(),
             user.getRole(),
-            user.getSiteIds(),
+            List.copyOf(user.getSiteIds()),
             user.getPreferredLanguage(),
             user.getNotificationEnabled()
         );
     }
     
     /**
-     * Get user's sites from database by their site IDs
+     * Get the sites in a user's token site set
+     * Served from the in-memory site catalog, no database access
      */
-    @Transactional(readOnly = true)
-    public List<SiteDTO> getUserSites(List<Long> siteIds) {
-        if (siteIds == null || siteIds.isEmpty()) {
-            return List.of();
-        }
-        
-        // Fetch sites from database
-        List<Site> sites = siteRepository.findByIdIn(siteIds);
-        
-        // Convert to DTOs
-        return sites.stream()
-            .map(site -> new SiteDTO(
-                site.getId(),
-                site.getName(),
-                site.getLocation(),
-                site.getStatus()
-            ))
-            .toList();
+    public List<SiteDTO> getUserSites(SiteSet sites) {
+        return siteService.getSiteDTOs(sites);
     }
     
     @Transactional
-    public User updatePreferences(Long userId, Map<String, Object> preferences) {
+    public UserDTO updatePreferences(Long userId, Map<String, Object> preferences) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -86,6 +189,6 @@ public class UserService {
             user.setNotificationEnabled((Boolean) preferences.get("notificationEnabled"));
         }
         
-        return userRepository.save(user);
+        return toDTO(userRepository.save(user));
     }
 }
@@ -0,0 +1,8 @@
+-- Migration V10: Index for keyset (cursor) pagination of notifications
+-- Serves WHERE user_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT n
+-- as a single index range scan, at any depth and without a COUNT query.
+
+CREATE INDEX idx_notifications_user_created_id ON notifications(user_id, created_at DESC, id DESC);
+
+-- The composite index has user_id as leading column and replaces the single-column one
+DROP INDEX IF EXISTS idx_notifications_user_id;
@@ -0,0 +1,59 @@
+-- Migration V11: Materialized unread notification counters
+-- One row per user, maintained by statement-level triggers on notifications so every
+-- write path (API, bulk SQL, ingestion) keeps it current. Reading the unread count is
+-- then a primary key lookup. NotificationCounterReconciler corrects any drift.
+
+CREATE TABLE notification_counters (
+    user_id BIGINT PRIMARY KEY,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Initial values
+INSERT INTO notification_counters (user_id, unread_count)
+SELECT user_id, COUNT(*) FILTER (WHERE NOT is_read)
+FROM notifications
+GROUP BY user_id;
+
+-- Apply the unread delta of a whole statement, one upsert per affected user
+CREATE OR REPLACE FUNCTION apply_notification_counter_delta() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO notification_counters AS c (user_id, unread_count)
+        SELECT user_id, COUNT(*) FROM new_rows WHERE NOT is_read GROUP BY user_id ORDER BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET unread_count = c.unread_count + EXCLUDED.unread_count;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO notification_counters AS c (user_id, unread_count)
+        SELECT user_id, SUM(delta) FROM (
+            SELECT user_id, 1 AS delta FROM new_rows WHERE NOT is_read
+            UNION ALL
+            SELECT user_id, -1 AS delta FROM old_rows WHERE NOT is_read
+        ) changes
+        GROUP BY user_id HAVING SUM(delta) <> 0 ORDER BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET unread_count = GREATEST(0, c.unread_count + EXCLUDED.unread_count);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE notification_counters c
+        SET unread_count = GREATEST(0, c.unread_count - d.removed)
+        FROM (SELECT user_id, COUNT(*) AS removed FROM old_rows WHERE NOT is_read GROUP BY user_id) d
+        WHERE c.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notifications_counter_insert
+    AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+CREATE TRIGGER notifications_counter_update
+    AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+CREATE TRIGGER notifications_counter_delete
+    AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+COMMENT ON TABLE notification_counters IS 'Unread notification count per user, maintained by triggers on notifications';
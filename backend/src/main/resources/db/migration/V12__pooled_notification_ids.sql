@@ -0,0 +1,9 @@
+-- Migration V12: Pooled sequence ids for notifications
+-- Hibernate reserves 50 ids per nextval (pooled optimizer, allocationSize = 50 on Notification),
+-- which lets batch ingestion send JDBC batches instead of one INSERT ... RETURNING per row.
+-- The column keeps its default, so plain SQL inserts still work (ids just advance in steps of 50).
+
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
+
+-- The next pool starts right after the highest existing id
+SELECT setval('notifications_id_seq', GREATEST(COALESCE(MAX(id), 0), 1)) FROM notifications;
@@ -0,0 +1,80 @@
+-- Migration V13: Monthly range partitioning of notifications on created_at
+-- Old months are removed by dropping their partition (NotificationPartitionManager) instead of
+-- DELETE + vacuum. Every query filters on user_id and uses the partitioned indexes below; keyset
+-- pages are served by a merge of the per-partition index scans, so they work across months.
+-- Upcoming partitions are created ahead of time by NotificationPartitionManager; rows outside
+-- every monthly range land in notifications_default.
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER TABLE notifications_legacy RENAME CONSTRAINT notifications_pkey TO notifications_legacy_pkey;
+-- Keep the id sequence (and its pooled increment, see V12) when the old table is dropped
+ALTER SEQUENCE notifications_id_seq OWNED BY NONE;
+
+-- The partition key must be part of the primary key; ids stay unique through the sequence
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_id_seq'),
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT,
+    type VARCHAR(50) NOT NULL,
+    priority VARCHAR(50) NOT NULL,
+    is_read BOOLEAN NOT NULL DEFAULT false,
+    action_url VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- One partition per month from the oldest notification to three months ahead
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notifications_legacy), now()));
+    last_month DATE := date_trunc('month', now()) + INTERVAL '3 months';
+    partition_start DATE := first_month;
+BEGIN
+    WHILE partition_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+            'notifications_p' || to_char(partition_start, 'YYYYMM'),
+            partition_start,
+            partition_start + INTERVAL '1 month'
+        );
+        partition_start := partition_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- notification_counters already match these rows: copy before the counter triggers exist
+INSERT INTO notifications (id, user_id, title, message, type, priority, is_read, action_url, created_at)
+SELECT id, user_id, title, message, type, priority, is_read, action_url, created_at
+FROM notifications_legacy;
+
+-- Also drops the V4/V10 indexes and the V11 triggers of the old table
+DROP TABLE notifications_legacy;
+
+-- Partitioned indexes (created on every current and future partition)
+-- Keyset pagination (see V10)
+CREATE INDEX idx_notifications_user_created_id ON notifications(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_is_read ON notifications(user_id, is_read);
+-- The global idx_notifications_created_at is not recreated: created_at ranges prune partitions
+
+-- Counter triggers (see V11) on the partitioned table; they cover rows in every partition
+CREATE TRIGGER notifications_counter_insert
+    AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+CREATE TRIGGER notifications_counter_update
+    AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+CREATE TRIGGER notifications_counter_delete
+    AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_notification_counter_delta();
+
+COMMENT ON TABLE notifications IS 'User notifications, range partitioned by month on created_at (notifications_pYYYYMM)';
@@ -0,0 +1,5 @@
+-- Migration V14: Index user_sites by site
+-- The primary key (user_id, site_id) cannot serve "every user of a site"; site broadcasts
+-- (NotificationBroadcastService) select recipients with WHERE site_id = ?
+
+CREATE INDEX idx_user_sites_site_id ON user_sites(site_id);
@@ -0,0 +1,27 @@
+-- Migration V15: Notification coalescing and digests
+-- Repeats of an unread notification with the same (user, type, dedupe key) inside the coalescing
+-- window bump occurrences on the existing row instead of inserting (see NotificationCoalescer).
+-- Low-priority notifications for users in digest mode wait in notification_digest_items and are
+-- summarized periodically into a single notification (see NotificationDigestService).
+
+ALTER TABLE notifications ADD COLUMN dedupe_key VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN occurrences INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN last_occurred_at TIMESTAMP;
+
+-- Coalescing lookup: latest unread row for a key; only rows that have a key are indexed
+CREATE INDEX idx_notifications_dedupe ON notifications(user_id, type, dedupe_key, created_at DESC)
+    WHERE dedupe_key IS NOT NULL AND NOT is_read;
+
+CREATE TABLE notification_digest_items (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_digest_items_user_id ON notification_digest_items(user_id);
+
+COMMENT ON COLUMN notifications.occurrences IS 'Number of coalesced repeats (1 = no repeat)';
+COMMENT ON TABLE notification_digest_items IS 'Low-priority notifications waiting for the next digest of their user';
@@ -0,0 +1,31 @@
+-- Migration V16: Scheduled and expiring notifications
+-- Notifications with a future deliver_at wait in scheduled_notifications: they are not visible,
+-- not counted as unread and not pushed until NotificationScheduler moves them into notifications.
+-- Delivered notifications may carry expires_at; they are deleted once it passes (the counter
+-- triggers adjust the unread count). Both "due" lookups below only read the next horizon of
+-- timers, which the scheduler keeps in memory.
+
+ALTER TABLE notifications ADD COLUMN expires_at TIMESTAMP;
+
+-- Only rows that expire are indexed
+CREATE INDEX idx_notifications_expires_at ON notifications(expires_at) WHERE expires_at IS NOT NULL;
+
+CREATE TABLE scheduled_notifications (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT,
+    type VARCHAR(50) NOT NULL,
+    priority VARCHAR(50) NOT NULL,
+    action_url VARCHAR(500),
+    dedupe_key VARCHAR(255),
+    deliver_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_scheduled_notifications_deliver_at ON scheduled_notifications(deliver_at);
+
+COMMENT ON COLUMN notifications.expires_at IS 'Deleted by NotificationScheduler after this instant (UTC)';
+COMMENT ON TABLE scheduled_notifications IS 'Notifications waiting for deliver_at (UTC); claimed by deleting the row';
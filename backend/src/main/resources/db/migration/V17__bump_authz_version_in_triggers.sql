@@ -0,0 +1,57 @@
+-- Migration V17: Authorization version maintained by triggers
+-- Roles and site assignments are changed by admin tools and SQL outside the application, so
+-- the version is bumped in the database: when users.role changes, and once per statement for
+-- each user whose rows in user_sites were inserted or deleted. Every bump is announced on the
+-- hub_authz channel; pg_notify is delivered on commit, and every backend node LISTENs to it.
+
+-- A role change bumps the version of the updated row
+CREATE OR REPLACE FUNCTION bump_authz_version_on_role() RETURNS trigger AS $$
+BEGIN
+    NEW.authz_version := OLD.authz_version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER users_role_authz_version
+    BEFORE UPDATE OF role ON users
+    FOR EACH ROW WHEN (OLD.role IS DISTINCT FROM NEW.role)
+    EXECUTE FUNCTION bump_authz_version_on_role();
+
+-- Site assignment changes bump each affected user once per statement
+CREATE OR REPLACE FUNCTION bump_authz_version_on_sites() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE users u SET authz_version = u.authz_version + 1
+        WHERE u.id IN (SELECT user_id FROM new_rows);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE users u SET authz_version = u.authz_version + 1
+        WHERE u.id IN (SELECT user_id FROM old_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER user_sites_authz_version_insert
+    AFTER INSERT ON user_sites
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_authz_version_on_sites();
+
+CREATE TRIGGER user_sites_authz_version_delete
+    AFTER DELETE ON user_sites
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_authz_version_on_sites();
+
+-- Announce every new version as "<user id>|<version>"
+CREATE OR REPLACE FUNCTION notify_authz_version() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('hub_authz', NEW.id || '|' || NEW.authz_version);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER users_authz_version_notify
+    AFTER UPDATE ON users
+    FOR EACH ROW WHEN (OLD.authz_version IS DISTINCT FROM NEW.authz_version)
+    EXECUTE FUNCTION notify_authz_version();
+
+COMMENT ON COLUMN users.authz_version IS 'Authorization version, bumped by triggers on role and user_sites changes. Tokens issued with an older version are rejected.';
@@ -0,0 +1,15 @@
+-- Migration V18: Announce changes of the sites table
+-- Sites are written by admin tools and the external site sync, not by the application, so a
+-- statement-level trigger announces every committed change on the hub_sites channel and each
+-- backend node reloads its in-memory site catalog (see SiteService).
+
+CREATE OR REPLACE FUNCTION notify_sites_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('hub_sites', TG_OP);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sites_changed_notify
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON sites
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_sites_changed();
@@ -0,0 +1,14 @@
+-- Migration V19: Ingest stream receipts
+-- NotificationIngestStreamConsumer records the Redis stream id of every entry it ingests, in the
+-- same transaction as the notifications. An entry delivered again (XACK lost after the commit,
+-- claimed from a dead consumer) finds its receipt and is acknowledged without a second write.
+-- Receipts are purged after hub.notifications.ingest-stream.receipt-retention.
+
+CREATE TABLE notification_ingest_receipts (
+    source_id VARCHAR(64) PRIMARY KEY,
+    received_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_notification_ingest_receipts_received_at ON notification_ingest_receipts(received_at);
+
+COMMENT ON TABLE notification_ingest_receipts IS 'Stream ids already ingested (UTC received_at), for idempotent redelivery';
@@ -0,0 +1,5 @@
+-- Migration V8: Document password hash format after cost calibration
+-- New hashes use the DelegatingPasswordEncoder format with a calibrated BCrypt cost.
+-- Existing hashes (plain BCrypt, cost 10) keep working and are upgraded on next login.
+
+COMMENT ON COLUMN users.password_hash IS 'Password hash in {id}hash format, e.g. {bcrypt}$2a$<cost>$... The BCrypt cost is calibrated at startup. Legacy unprefixed BCrypt hashes are rehashed on next successful login. NULL for SSO-only users.';
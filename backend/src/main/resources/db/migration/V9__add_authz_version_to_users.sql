@@ -0,0 +1,8 @@
+-- Migration V9: Authorization version stamp
+-- Incremented whenever a user's role or site assignments change.
+-- Access tokens carry the version they were issued with ("av" claim); tokens with an
+-- older version are rejected so role/site changes apply before the token expires.
+
+ALTER TABLE users ADD COLUMN authz_version INTEGER NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN users.authz_version IS 'Authorization version, incremented on role or site changes. Tokens issued with an older version are rejected.';
@@ -0,0 +1,85 @@
+package com.smartsolutions.hub.benchmark;
+
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import com.smartsolutions.hub.config.JwtConfig;
+import com.smartsolutions.hub.model.User;
+import com.smartsolutions.hub.security.JwksKeyStore;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.VerifiedTokenCache;
+import com.smartsolutions.hub.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Token Verification Benchmark
+ * Throughput of JwtService.parseAccessToken (the per-request work of JwtAuthenticationFilter)
+ * with and without the verified token cache, for a token carrying many sites.
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.smartsolutions.hub.benchmark.TokenVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TokenVerificationBenchmark {
+    
+    @Param({ "true", "false" })
+    private boolean cached;
+    
+    private JwtService jwtService;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("benchmark-secret-key-with-at-least-256-bits-0123456789");
+        jwtConfig.getCache().setEnabled(cached);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        cache.init();
+        HubSecurityProperties securityProperties = new HubSecurityProperties();
+        jwtService = new JwtService(jwtConfig, securityProperties, cache,
+            new JwksKeyStore(securityProperties, new DefaultResourceLoader()));
+        jwtService.init();
+        
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("director@example.com");
+        user.setName("Director");
+        user.setRole("director");
+        user.setSiteIds(LongStream.rangeClosed(1, 300).boxed().toList());
+        token = jwtService.generateAccessToken(user);
+    }
+    
+    @Benchmark
+    public Optional<ParsedAccessToken> parseAccessToken() {
+        return jwtService.parseAccessToken(token);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TokenVerificationBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
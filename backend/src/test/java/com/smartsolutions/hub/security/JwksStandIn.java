@@ -0,0 +1,87 @@
+package com.smartsolutions.hub.security;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for the Azure AD JWKS endpoint
+ * Holds RSA signing keys by kid and publishes their public halves as a JWKS file, which
+ * JwksKeyStore reads through a file: location exactly like the https: endpoint.
+ */
+public class JwksStandIn {
+    
+    private final Path file;
+    private final Map<String, KeyPair> keys = new LinkedHashMap<>();
+    
+    public JwksStandIn(Path file) {
+        this.file = file;
+        publish();
+    }
+    
+    /**
+     * file: location to configure as hub.security.azure.jwks-location
+     */
+    public String location() {
+        return file.toUri().toString();
+    }
+    
+    /**
+     * Create a signing key; it is only visible to verifiers once published
+     */
+    public void addKey(String keyId) {
+        keys.put(keyId, Jwts.SIG.RS256.keyPair().build());
+    }
+    
+    /**
+     * Rewrite the JWKS file with every key created so far (key rotation)
+     */
+    public void publish() {
+        String jwks = keys.entrySet().stream()
+            .map(entry -> jwk(entry.getKey(), (RSAPublicKey) entry.getValue().getPublic()))
+            .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+        try {
+            Files.writeString(file, jwks, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Token builder signed with the given key, kid set in the header
+     */
+    public JwtBuilder token(String keyId) {
+        return Jwts.builder()
+            .header().keyId(keyId).and()
+            .signWith(keys.get(keyId).getPrivate(), Jwts.SIG.RS256);
+    }
+    
+    private static String jwk(String keyId, RSAPublicKey key) {
+        return "{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"%s\",\"n\":\"%s\",\"e\":\"%s\"}"
+            .formatted(keyId, base64Url(key.getModulus()), base64Url(key.getPublicExponent()));
+    }
+    
+    /**
+     * Unsigned big-endian base64url, as JWK requires
+     */
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,88 @@
+package com.smartsolutions.hub.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SiteSetTest {
+    
+    private static SiteSet of(long... ids) {
+        return SiteSet.of(Arrays.stream(ids).boxed().toList());
+    }
+    
+    @Test
+    void encodesConsecutiveIdsAsRanges() {
+        SiteSet sites = SiteSet.of(LongStream.concat(
+            LongStream.rangeClosed(1, 40),
+            LongStream.concat(LongStream.of(52), LongStream.rangeClosed(60, 75))).boxed().toList());
+        
+        assertThat(sites.encode()).isEqualTo("r:1-40,52,60-75");
+        assertThat(SiteSet.decode(sites.encode())).isEqualTo(sites);
+    }
+    
+    @Test
+    void encodesScatteredSmallIdsAsBitmap() {
+        SiteSet sites = SiteSet.of(LongStream.rangeClosed(0, 200).filter(id -> id % 2 == 0).boxed().toList());
+        
+        assertThat(sites.encode()).startsWith("b:");
+        assertThat(SiteSet.decode(sites.encode())).isEqualTo(sites);
+    }
+    
+    @Test
+    void largeSparseIdsStayInRanges() {
+        SiteSet sites = of(100_000, 200_000, 200_001);
+        
+        assertThat(sites.encode()).isEqualTo("r:100000,200000-200001");
+        assertThat(sites.contains(200_001)).isTrue();
+        assertThat(sites.contains(150_000)).isFalse();
+    }
+    
+    @Test
+    void containsMatchesTheIds() {
+        SiteSet sites = of(3, 7, 65_535, 70_000);
+        
+        assertThat(sites.contains(3)).isTrue();
+        assertThat(sites.contains(65_535)).isTrue();
+        assertThat(sites.contains(70_000)).isTrue();
+        assertThat(sites.contains(4)).isFalse();
+        assertThat(sites.contains(-1)).isFalse();
+    }
+    
+    @Test
+    void ofIgnoresNullsDuplicatesAndNegatives() {
+        List<Long> ids = new ArrayList<>(List.of(5L, 1L, 5L, -3L));
+        ids.add(null);
+        
+        assertThat(SiteSet.of(ids).toList()).containsExactly(1L, 5L);
+        assertThat(SiteSet.of(List.of())).isSameAs(SiteSet.empty());
+    }
+    
+    @Test
+    void randomSetsSurviveARoundTrip() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int bound = random.nextBoolean() ? 500 : 1_000_000;
+            SiteSet sites = SiteSet.of(random.longs(random.nextInt(300) + 1, 0, bound).boxed().toList());
+            
+            SiteSet decoded = SiteSet.decode(sites.encode());
+            
+            assertThat(decoded).isEqualTo(sites);
+            assertThat(decoded.size()).isEqualTo(sites.size());
+            sites.stream().forEach(id -> assertThat(decoded.contains(id)).isTrue());
+        }
+    }
+    
+    @Test
+    void decodesEmptyAndRejectsUnknownEncodings() {
+        assertThat(SiteSet.decode(null).isEmpty()).isTrue();
+        assertThat(SiteSet.decode("r:").isEmpty()).isTrue();
+        assertThatThrownBy(() -> SiteSet.decode("x:1-3")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartsolutions.hub.security;
+
+import com.smartsolutions.hub.config.JwtConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class VerifiedTokenCacheTest {
+    
+    private static VerifiedTokenCache cache(boolean enabled) {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.getCache().setEnabled(enabled);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+    
+    private static ParsedAccessToken token(Instant expiresAt) {
+        return new ParsedAccessToken(1L, "user@example.com", "User", "admin", SiteSet.of(List.of(1L, 2L)),
+            0, "jti-1", Instant.now(), expiresAt);
+    }
+    
+    @Test
+    void returnsTheStoredTokenUntilItExpires() {
+        VerifiedTokenCache cache = cache(true);
+        ParsedAccessToken parsed = token(Instant.now().plus(Duration.ofHours(1)));
+        
+        cache.put("raw-token", parsed);
+        
+        assertThat(cache.get("raw-token")).contains(parsed);
+        assertThat(cache.get("other-token")).isEmpty();
+    }
+    
+    @Test
+    void entryExpiresAtTheTokenExp() {
+        VerifiedTokenCache cache = cache(true);
+        cache.put("raw-token", token(Instant.now().plusMillis(300)));
+        
+        assertThat(cache.get("raw-token")).isPresent();
+        await().atMost(Duration.ofSeconds(2)).until(() -> cache.get("raw-token").isEmpty());
+    }
+    
+    @Test
+    void alreadyExpiredTokenIsNeverServed() {
+        VerifiedTokenCache cache = cache(true);
+        cache.put("raw-token", token(Instant.now().minusSeconds(1)));
+        
+        assertThat(cache.get("raw-token")).isEmpty();
+    }
+    
+    @Test
+    void invalidateEvictsTheEntry() {
+        VerifiedTokenCache cache = cache(true);
+        cache.put("raw-token", token(Instant.now().plus(Duration.ofHours(1))));
+        
+        cache.invalidate("raw-token");
+        
+        assertThat(cache.get("raw-token")).isEmpty();
+    }
+    
+    @Test
+    void disabledCacheNeverHits() {
+        VerifiedTokenCache cache = cache(false);
+        cache.put("raw-token", token(Instant.now().plus(Duration.ofHours(1))));
+        
+        assertThat(cache.get("raw-token")).isEmpty();
+    }
+}
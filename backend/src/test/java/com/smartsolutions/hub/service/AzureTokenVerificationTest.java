@@ -0,0 +1,127 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import com.smartsolutions.hub.config.JwtConfig;
+import com.smartsolutions.hub.security.JwksKeyStore;
+import com.smartsolutions.hub.security.JwksStandIn;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.VerifiedTokenCache;
+import io.jsonwebtoken.JwtBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Azure AD tokens verified against a local JWKS stand-in
+ */
+class AzureTokenVerificationTest {
+    
+    private static final String ISSUER = "https://login.example.com/tenant/v2.0";
+    private static final String AUDIENCE = "api://hub";
+    
+    @TempDir
+    Path directory;
+    
+    private JwksStandIn jwks;
+    private JwksKeyStore jwksKeyStore;
+    private JwtService jwtService;
+    
+    @BeforeEach
+    void setUp() {
+        jwks = new JwksStandIn(directory.resolve("jwks.json"));
+        jwks.addKey("key-1");
+        jwks.publish();
+        
+        HubSecurityProperties securityProperties = new HubSecurityProperties();
+        HubSecurityProperties.Azure azure = securityProperties.getAzure();
+        azure.setEnabled(true);
+        azure.setIssuer(ISSUER);
+        azure.setAudience(AUDIENCE);
+        azure.setJwksLocation(jwks.location());
+        azure.setMinRefreshInterval(Duration.ZERO);
+        
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(JwtServiceTest.SECRET);
+        jwtConfig.getCache().setEnabled(false);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        cache.init();
+        jwksKeyStore = new JwksKeyStore(securityProperties, new DefaultResourceLoader());
+        jwksKeyStore.refresh();
+        jwtService = new JwtService(jwtConfig, securityProperties, cache, jwksKeyStore);
+        jwtService.init();
+    }
+    
+    private JwtBuilder azureToken(String keyId) {
+        return jwks.token(keyId)
+            .issuer(ISSUER)
+            .audience().add(AUDIENCE).and()
+            .claim("preferred_username", "azure.user@example.com")
+            .claim("name", "Azure User")
+            .claim("roles", List.of("director"))
+            .id("azure-jti")
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + 60_000));
+    }
+    
+    @Test
+    void acceptsTokenSignedWithAPublishedKey() {
+        ParsedAccessToken parsed = jwtService.parseAccessToken(azureToken("key-1").compact()).orElseThrow();
+        
+        assertThat(parsed.userId()).isNull();
+        assertThat(parsed.email()).isEqualTo("azure.user@example.com");
+        assertThat(parsed.role()).isEqualTo("director");
+        assertThat(parsed.tokenId()).isEqualTo("azure-jti");
+    }
+    
+    @Test
+    void unknownKidTriggersAKeysetRefresh() {
+        jwks.addKey("key-2");
+        String rotated = azureToken("key-2").compact();
+        
+        // Not published yet: rejected, and the reload finds nothing new
+        assertThat(jwtService.parseAccessToken(rotated)).isEmpty();
+        
+        jwks.publish();
+        
+        // The first rejection after publication schedules a background reload; later calls pass
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> jwtService.parseAccessToken(rotated).isPresent());
+        assertThat(jwksKeyStore.find("key-1")).isPresent();
+    }
+    
+    @Test
+    void rejectsTokenWithoutExpiration() {
+        String token = azureToken("key-1").expiration(null).compact();
+        
+        assertThat(jwtService.parseAccessToken(token)).isEmpty();
+    }
+    
+    @Test
+    void rejectsTokenForAnotherAudience() {
+        String token = jwks.token("key-1")
+            .issuer(ISSUER)
+            .audience().add("api://other").and()
+            .claim("preferred_username", "azure.user@example.com")
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .compact();
+        
+        assertThat(jwtService.parseAccessToken(token)).isEmpty();
+    }
+    
+    @Test
+    void rejectsTokenFromAnotherIssuer() {
+        String token = azureToken("key-1").issuer("https://evil.example.com").compact();
+        
+        assertThat(jwtService.parseAccessToken(token)).isEmpty();
+    }
+}
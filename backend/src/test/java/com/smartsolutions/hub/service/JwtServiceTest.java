@@ -0,0 +1,138 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.config.HubSecurityProperties;
+import com.smartsolutions.hub.config.JwtConfig;
+import com.smartsolutions.hub.model.User;
+import com.smartsolutions.hub.security.JwksKeyStore;
+import com.smartsolutions.hub.security.ParsedAccessToken;
+import com.smartsolutions.hub.security.VerifiedTokenCache;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtServiceTest {
+    
+    static final String SECRET = "test-secret-key-with-at-least-256-bits-0123456789";
+    
+    static JwtService jwtService(boolean cacheEnabled, HubSecurityProperties securityProperties) {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(SECRET);
+        jwtConfig.getCache().setEnabled(cacheEnabled);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        cache.init();
+        JwksKeyStore jwksKeyStore = new JwksKeyStore(securityProperties, new DefaultResourceLoader());
+        JwtService jwtService = new JwtService(jwtConfig, securityProperties, cache, jwksKeyStore);
+        jwtService.init();
+        return jwtService;
+    }
+    
+    static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("user@example.com");
+        user.setName("User");
+        user.setRole("director");
+        user.setSiteIds(List.of(1L, 2L, 3L));
+        return user;
+    }
+    
+    /**
+     * Replace the access token parser, so a test can see whether a signature is verified
+     */
+    private static JwtParser stubParser(JwtService jwtService, String token) {
+        JwtParser parser = mock(JwtParser.class);
+        when(parser.parseSignedClaims(token)).thenThrow(new JwtException("verified again"));
+        ReflectionTestUtils.setField(jwtService, "accessTokenParser", parser);
+        return parser;
+    }
+    
+    @Test
+    void parsesOwnAccessToken() {
+        JwtService jwtService = jwtService(false, new HubSecurityProperties());
+        
+        ParsedAccessToken parsed = jwtService.parseAccessToken(jwtService.generateAccessToken(user())).orElseThrow();
+        
+        assertThat(parsed.userId()).isEqualTo(42L);
+        assertThat(parsed.email()).isEqualTo("user@example.com");
+        assertThat(parsed.role()).isEqualTo("director");
+        assertThat(parsed.sites().contains(2L)).isTrue();
+        assertThat(parsed.expiresAt()).isAfter(parsed.issuedAt());
+    }
+    
+    @Test
+    void cacheHitSkipsSignatureVerification() {
+        JwtService jwtService = jwtService(true, new HubSecurityProperties());
+        String token = jwtService.generateAccessToken(user());
+        assertThat(jwtService.parseAccessToken(token)).isPresent();
+        
+        JwtParser parser = stubParser(jwtService, token);
+        
+        assertThat(jwtService.parseAccessToken(token)).map(ParsedAccessToken::email).contains("user@example.com");
+        verifyNoInteractions(parser);
+    }
+    
+    @Test
+    void withoutCacheEveryCallVerifiesTheSignature() {
+        JwtService jwtService = jwtService(false, new HubSecurityProperties());
+        String token = jwtService.generateAccessToken(user());
+        assertThat(jwtService.parseAccessToken(token)).isPresent();
+        
+        JwtParser parser = stubParser(jwtService, token);
+        
+        assertThat(jwtService.parseAccessToken(token)).isEmpty();
+        verify(parser).parseSignedClaims(token);
+    }
+    
+    @Test
+    void evictedTokenIsVerifiedAgain() {
+        JwtService jwtService = jwtService(true, new HubSecurityProperties());
+        String token = jwtService.generateAccessToken(user());
+        assertThat(jwtService.parseAccessToken(token)).isPresent();
+        
+        jwtService.evictVerified(token);
+        JwtParser parser = stubParser(jwtService, token);
+        
+        assertThat(jwtService.parseAccessToken(token)).isEmpty();
+        verify(parser).parseSignedClaims(token);
+    }
+    
+    @Test
+    void acceptsLegacySiteIdsArray() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        String legacy = Jwts.builder()
+            .claim("userId", 42)
+            .claim("siteIds", List.of(1, 2, 3_000_000_000L))
+            .claim("type", "access")
+            .subject("user@example.com")
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(key)
+            .compact();
+        
+        ParsedAccessToken parsed = jwtService(false, new HubSecurityProperties()).parseAccessToken(legacy).orElseThrow();
+        
+        assertThat(parsed.sites().toList()).containsExactly(1L, 2L, 3_000_000_000L);
+    }
+    
+    @Test
+    void rejectsRefreshTokenAsAccessToken() {
+        JwtService jwtService = jwtService(false, new HubSecurityProperties());
+        
+        assertThat(jwtService.parseAccessToken(jwtService.generateRefreshToken(user()))).isEmpty();
+    }
+}
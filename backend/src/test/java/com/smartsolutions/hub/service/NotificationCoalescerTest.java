@@ -0,0 +1,131 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.support.TestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent batches carrying the same dedupe keys, each inserting the keys the coalescer missed
+ * in its own transaction, the way NotificationIngestionService does
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationCoalescerTest {
+    
+    private static final int THREADS = 8;
+    private static final int BATCHES_PER_THREAD = 20;
+    private static final int REPEATS_PER_BATCH = 3;
+    
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static NotificationCoalescer coalescer;
+    
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = TestDatabase.jdbcTemplate();
+        transactionTemplate = TestDatabase.transactionTemplate();
+        coalescer = new NotificationCoalescer(jdbcTemplate);
+        ReflectionTestUtils.setField(coalescer, "window", Duration.ofMinutes(10));
+    }
+    
+    private static CreateNotificationRequest item(long userId, String dedupeKey, String title) {
+        return new CreateNotificationRequest(userId, title, "Message", "warning", "medium", null, dedupeKey, null, null);
+    }
+    
+    private static void ingest(Map<NotificationCoalescer.Key, List<CreateNotificationRequest>> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            Map<NotificationCoalescer.Key, ?> updated = coalescer.coalesce(batch, now);
+            batch.forEach((key, group) -> {
+                if (!updated.containsKey(key)) {
+                    jdbcTemplate.update("""
+                        INSERT INTO notifications (user_id, title, type, priority, dedupe_key, occurrences, created_at)
+                        VALUES (?, ?, ?, 'medium', ?, ?, ?)
+                        """, key.userId(), group.get(group.size() - 1).title(), key.type(), key.dedupeKey(),
+                        group.size(), LocalDateTime.ofInstant(now, ZoneOffset.UTC));
+                }
+            });
+        });
+    }
+    
+    @Test
+    void concurrentBatchesFoldIntoOneNotificationPerKey() throws Exception {
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        List<String> keys = List.of("disk-full", "cpu-high", "sensor-offline");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            // Each thread lists the keys in a different order: the sorted locks must not deadlock
+            List<String> order = new ArrayList<>(keys);
+            Collections.rotate(order, thread);
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int batch = 0; batch < BATCHES_PER_THREAD; batch++) {
+                    Map<NotificationCoalescer.Key, List<CreateNotificationRequest>> items = new LinkedHashMap<>();
+                    for (String dedupeKey : order) {
+                        List<CreateNotificationRequest> group = new ArrayList<>();
+                        for (int i = 0; i < REPEATS_PER_BATCH; i++) {
+                            group.add(item(userId, dedupeKey, dedupeKey + " " + i));
+                        }
+                        items.put(NotificationCoalescer.Key.of(group.get(0)), group);
+                    }
+                    ingest(items);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT dedupe_key, occurrences, is_read FROM notifications WHERE user_id = ? ORDER BY dedupe_key", userId);
+        assertThat(rows).extracting(row -> row.get("dedupe_key")).containsExactlyInAnyOrderElementsOf(keys);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.get("occurrences")).isEqualTo(THREADS * BATCHES_PER_THREAD * REPEATS_PER_BATCH);
+            assertThat(row.get("is_read")).isEqualTo(false);
+        });
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT unread_count FROM notification_counters WHERE user_id = ?", Long.class, userId))
+            .isEqualTo(keys.size());
+    }
+    
+    @Test
+    void readNotificationIsNotCoalesced() {
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        CreateNotificationRequest first = item(userId, "door-open", "Door open");
+        NotificationCoalescer.Key key = NotificationCoalescer.Key.of(first);
+        
+        ingest(Map.of(key, List.of(first)));
+        jdbcTemplate.update("UPDATE notifications SET is_read = true WHERE user_id = ?", userId);
+        ingest(Map.of(key, List.of(item(userId, "door-open", "Door open again"))));
+        
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT occurrences FROM notifications WHERE user_id = ?", Integer.class, userId))
+            .containsExactly(1, 1);
+    }
+}
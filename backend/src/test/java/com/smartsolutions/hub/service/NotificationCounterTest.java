@@ -0,0 +1,128 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migrations, the notification_counters triggers (V11, V13) and NotificationCounterReconciler
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationCounterTest {
+    
+    private static JdbcTemplate jdbcTemplate;
+    private static NotificationCounterReconciler reconciler;
+    
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = TestDatabase.jdbcTemplate();
+        reconciler = new NotificationCounterReconciler(jdbcTemplate, TestDatabase.transactionTemplate(), new SimpleMeterRegistry());
+        reconciler.init();
+    }
+    
+    private static void insert(long userId, boolean read, LocalDateTime createdAt) {
+        jdbcTemplate.update("""
+            INSERT INTO notifications (user_id, title, type, priority, is_read, created_at)
+            VALUES (?, 'Title', 'INFO', 'NORMAL', ?, ?)
+            """, userId, read, createdAt);
+    }
+    
+    private static long counter(long userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT unread_count FROM notification_counters WHERE user_id = ?", Long.class, userId)
+            .stream().findFirst().orElse(-1L);
+    }
+    
+    @Test
+    void migrationsApplyCleanly() {
+        MigrationInfoService info = Flyway.configure().dataSource(TestDatabase.dataSource()).load().info();
+        
+        assertThat(info.pending()).isEmpty();
+        assertThat(info.applied()).allMatch(migration -> migration.getState().isApplied());
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_inherits WHERE inhparent = 'notifications'::regclass", Integer.class))
+            .isGreaterThan(1);
+    }
+    
+    @Test
+    void insertCountsUnreadRowsInEveryPartition() {
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        LocalDateTime now = LocalDateTime.now();
+        
+        insert(userId, false, now);
+        insert(userId, true, now);
+        // Falls into notifications_default
+        insert(userId, false, now.minusYears(5));
+        jdbcTemplate.update("""
+            INSERT INTO notifications (user_id, title, type, priority, created_at)
+            SELECT ?, 'Bulk', 'INFO', 'NORMAL', ? FROM generate_series(1, 10)
+            """, userId, now);
+        
+        assertThat(counter(userId)).isEqualTo(12);
+    }
+    
+    @Test
+    void updateAppliesTheReadDelta() {
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            insert(userId, false, now.minusMinutes(i));
+        }
+        
+        jdbcTemplate.update("""
+            UPDATE notifications SET is_read = true
+            WHERE id = (SELECT MIN(id) FROM notifications WHERE user_id = ?)
+            """, userId);
+        assertThat(counter(userId)).isEqualTo(4);
+        
+        jdbcTemplate.update("UPDATE notifications SET is_read = true WHERE user_id = ?", userId);
+        assertThat(counter(userId)).isZero();
+        
+        jdbcTemplate.update("UPDATE notifications SET is_read = false WHERE user_id = ?", userId);
+        assertThat(counter(userId)).isEqualTo(5);
+    }
+    
+    @Test
+    void deleteRemovesOnlyUnreadRows() {
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        LocalDateTime now = LocalDateTime.now();
+        insert(userId, false, now);
+        insert(userId, false, now);
+        insert(userId, true, now);
+        
+        jdbcTemplate.update("DELETE FROM notifications WHERE user_id = ? AND is_read", userId);
+        assertThat(counter(userId)).isEqualTo(2);
+        
+        jdbcTemplate.update("DELETE FROM notifications WHERE user_id = ?", userId);
+        assertThat(counter(userId)).isZero();
+    }
+    
+    @Test
+    void reconcilerFixesDriftedAndMissingCounters() {
+        long drifted = TestDatabase.createUser(jdbcTemplate);
+        long missing = TestDatabase.createUser(jdbcTemplate);
+        long correct = TestDatabase.createUser(jdbcTemplate);
+        LocalDateTime now = LocalDateTime.now();
+        for (long userId : new long[] {drifted, missing, correct}) {
+            insert(userId, false, now);
+            insert(userId, false, now);
+        }
+        jdbcTemplate.update("UPDATE notification_counters SET unread_count = 7 WHERE user_id = ?", drifted);
+        jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", missing);
+        
+        reconciler.reconcile();
+        
+        assertThat(counter(drifted)).isEqualTo(2);
+        assertThat(counter(missing)).isEqualTo(2);
+        assertThat(counter(correct)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,56 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationCursorTest {
+    
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void roundTripsCreatedAtAndId() {
+        NotificationCursor cursor = new NotificationCursor(Instant.parse("2024-05-01T10:15:30.123456Z"), 42L);
+        
+        assertThat(NotificationCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void encodesAsUrlSafeBase64WithoutPadding() {
+        String encoded = new NotificationCursor(Instant.parse("2024-05-01T10:15:30Z"), Long.MAX_VALUE).encode();
+        
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void rejectsInvalidBase64() {
+        assertThatThrownBy(() -> NotificationCursor.decode("not base64!"))
+            .isInstanceOf(BadRequestException.class);
+    }
+    
+    @Test
+    void rejectsMissingSeparator() {
+        assertThatThrownBy(() -> NotificationCursor.decode(base64("2024-05-01T10:15:30Z")))
+            .isInstanceOf(BadRequestException.class);
+    }
+    
+    @Test
+    void rejectsInvalidTimestamp() {
+        assertThatThrownBy(() -> NotificationCursor.decode(base64("yesterday|42")))
+            .isInstanceOf(BadRequestException.class);
+    }
+    
+    @Test
+    void rejectsInvalidId() {
+        assertThatThrownBy(() -> NotificationCursor.decode(base64("2024-05-01T10:15:30Z|abc")))
+            .isInstanceOf(BadRequestException.class);
+    }
+}
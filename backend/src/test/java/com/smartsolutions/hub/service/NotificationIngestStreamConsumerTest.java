@@ -0,0 +1,202 @@
+package com.smartsolutions.hub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsolutions.hub.config.IngestStreamProperties;
+import com.smartsolutions.hub.dto.CreateNotificationRequest;
+import com.smartsolutions.hub.dto.NotificationBatchResult;
+import com.smartsolutions.hub.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redelivery and receipts of the stream consumer, against Redis and Postgres containers;
+ * NotificationIngestionService is a stand-in that records what it is asked to write
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationIngestStreamConsumerTest {
+    
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+    
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<List<String>> ingestedTitles = Collections.synchronizedList(new ArrayList<>());
+    
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private NotificationIngestionService ingestionService;
+    private IngestStreamProperties properties;
+    private NotificationIngestStreamConsumer consumer;
+    private long userId;
+    
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        jdbcTemplate = TestDatabase.jdbcTemplate();
+        userId = TestDatabase.createUser(jdbcTemplate);
+        
+        String key = "test:ingest:" + UUID.randomUUID();
+        properties = new IngestStreamProperties();
+        properties.setKey(key);
+        properties.setDeadLetterKey(key + ":dead");
+        properties.setBlock(Duration.ofMillis(200));
+        properties.setClaimMinIdle(Duration.ofMillis(200));
+        properties.setMaxDeliveries(2);
+        
+        ingestionService = mock(NotificationIngestionService.class);
+        consumer = new NotificationIngestStreamConsumer(properties, redisTemplate, jdbcTemplate,
+            TestDatabase.transactionTemplate(), ingestionService, objectMapper, new SimpleMeterRegistry());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        consumer.stop();
+        connectionFactory.destroy();
+    }
+    
+    /**
+     * Stand-in ingestion: records the titles of each batch, fails the batches containing a failing title
+     */
+    private void ingestFailing(String... failingTitles) {
+        when(ingestionService.ingest(anyList())).thenAnswer(invocation -> {
+            List<CreateNotificationRequest> items = invocation.getArgument(0);
+            List<String> titles = items.stream().map(CreateNotificationRequest::title).toList();
+            ingestedTitles.add(titles);
+            if (titles.stream().anyMatch(List.of(failingTitles)::contains)) {
+                throw new IllegalStateException("Cannot ingest");
+            }
+            return new NotificationBatchResult(items.size(), 0, 0, 0, 0, List.of());
+        });
+    }
+    
+    private RecordId add(String title) throws Exception {
+        CreateNotificationRequest item =
+            new CreateNotificationRequest(userId, title, null, "info", "low", null, null, null, null);
+        return redisTemplate.opsForStream().add(StreamRecords.newRecord()
+            .in(properties.getKey())
+            .ofMap(Map.of("payload", objectMapper.writeValueAsString(item))));
+    }
+    
+    private long pending() {
+        return redisTemplate.opsForStream().pending(properties.getKey(), properties.getGroup()).getTotalPendingMessages();
+    }
+    
+    private String lastDelivered() {
+        return redisTemplate.opsForStream().groups(properties.getKey()).stream()
+            .filter(group -> group.groupName().equals(properties.getGroup()))
+            .findFirst().orElseThrow().lastDeliveredId();
+    }
+    
+    private boolean hasReceipt(RecordId id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM notification_ingest_receipts WHERE source_id = ?)", Boolean.class, id.getValue()));
+    }
+    
+    private List<String> allIngested() {
+        synchronized (ingestedTitles) {
+            return ingestedTitles.stream().flatMap(List::stream).toList();
+        }
+    }
+    
+    private long batches(List<String> titles) {
+        synchronized (ingestedTitles) {
+            return ingestedTitles.stream().filter(titles::equals).count();
+        }
+    }
+    
+    @Test
+    void ingestsRecordsTheReceiptsAndAcknowledges() throws Exception {
+        ingestFailing();
+        RecordId first = add("first");
+        RecordId second = add("second");
+        
+        consumer.start();
+        
+        await().atMost(TIMEOUT).until(() -> lastDelivered().equals(second.getValue()) && pending() == 0);
+        assertThat(allIngested()).containsExactly("first", "second");
+        assertThat(hasReceipt(first)).isTrue();
+        assertThat(hasReceipt(second)).isTrue();
+    }
+    
+    @Test
+    void redeliveredEntryWithAReceiptIsOnlyAcknowledged() throws Exception {
+        ingestFailing();
+        RecordId alreadyIngested = add("already ingested");
+        RecordId fresh = add("fresh");
+        // Committed before, but its XACK was lost
+        jdbcTemplate.update("INSERT INTO notification_ingest_receipts (source_id, received_at) VALUES (?, ?)",
+            alreadyIngested.getValue(), LocalDateTime.now(ZoneOffset.UTC));
+        
+        consumer.start();
+        
+        await().atMost(TIMEOUT).until(() -> lastDelivered().equals(fresh.getValue()) && pending() == 0);
+        assertThat(allIngested()).containsExactly("fresh");
+    }
+    
+    @Test
+    void failedBatchIsSplitAndTheFailingEntryRedeliveredThenDeadLettered() throws Exception {
+        ingestFailing("poison");
+        RecordId good = add("good");
+        RecordId poison = add("poison");
+        RecordId other = add("other");
+        
+        consumer.start();
+        
+        // Halves retried on their own: the good entries are written and acknowledged
+        await().atMost(TIMEOUT).until(() -> lastDelivered().equals(other.getValue()) && pending() == 1);
+        assertThat(allIngested()).contains("good", "other");
+        assertThat(hasReceipt(good)).isTrue();
+        assertThat(hasReceipt(other)).isTrue();
+        // Its receipt was rolled back with the failed transaction
+        assertThat(hasReceipt(poison)).isFalse();
+        
+        // Isolated by the split, then claimed after claimMinIdle and delivered again
+        await().atMost(TIMEOUT).pollInterval(Duration.ofMillis(300)).until(() -> {
+            consumer.maintain();
+            return batches(List.of("poison")) >= 2;
+        });
+        
+        // maxDeliveries reached: moved to the dead-letter stream and acknowledged
+        await().atMost(TIMEOUT).pollInterval(Duration.ofMillis(300)).until(() -> {
+            consumer.maintain();
+            return pending() == 0;
+        });
+        List<MapRecord<String, Object, Object>> dead =
+            redisTemplate.opsForStream().range(properties.getDeadLetterKey(), Range.unbounded());
+        assertThat(dead).hasSize(1);
+        assertThat(dead.get(0).getValue()).containsEntry("sourceId", poison.getValue());
+        assertThat(hasReceipt(poison)).isFalse();
+    }
+}
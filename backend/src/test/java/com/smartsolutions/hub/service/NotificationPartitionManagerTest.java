@@ -0,0 +1,124 @@
+package com.smartsolutions.hub.service;
+
+import com.smartsolutions.hub.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationPartitionManagerTest {
+    
+    @TempDir
+    Path archiveDir;
+    
+    private JdbcTemplate jdbcTemplate;
+    private NotificationPartitionManager manager;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = TestDatabase.jdbcTemplate();
+        manager = new NotificationPartitionManager(jdbcTemplate, TestDatabase.transactionTemplate(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(manager, "retentionMonths", 12);
+        ReflectionTestUtils.setField(manager, "premakeMonths", 3);
+        ReflectionTestUtils.setField(manager, "archiveDir", archiveDir);
+        ReflectionTestUtils.setField(manager, "lockTimeout", Duration.ofMillis(500));
+        manager.init();
+    }
+    
+    /**
+     * Create the partition of a month long past retention, with notifications for a new user
+     */
+    private long expiredPartition(YearMonth month, boolean... read) {
+        jdbcTemplate.execute("CREATE TABLE " + NotificationPartitionManager.partitionName(month)
+            + " PARTITION OF notifications FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        long userId = TestDatabase.createUser(jdbcTemplate);
+        for (boolean isRead : read) {
+            jdbcTemplate.update("""
+                INSERT INTO notifications (user_id, title, type, priority, is_read, created_at)
+                VALUES (?, 'Old', 'INFO', 'NORMAL', ?, ?)
+                """, userId, isRead, month.atDay(10).atStartOfDay());
+        }
+        return userId;
+    }
+    
+    private boolean exists(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT to_regclass(?) IS NOT NULL", Boolean.class, NotificationPartitionManager.partitionName(month)));
+    }
+    
+    private long counter(long userId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT unread_count FROM notification_counters WHERE user_id = ?", Long.class, userId);
+    }
+    
+    private long archivedLines(YearMonth month) throws IOException {
+        Path file = archiveDir.resolve(NotificationPartitionManager.partitionName(month) + ".csv.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().count();
+        }
+    }
+    
+    @Test
+    void archivesExpiredPartitionAndAdjustsCounters() throws IOException {
+        YearMonth month = YearMonth.of(2000, 1);
+        long userId = expiredPartition(month, false, false, true);
+        jdbcTemplate.update("""
+            INSERT INTO notifications (user_id, title, type, priority, created_at)
+            VALUES (?, 'Recent', 'INFO', 'NORMAL', ?)
+            """, userId, LocalDateTime.now());
+        assertThat(counter(userId)).isEqualTo(3);
+        
+        manager.maintain();
+        
+        assertThat(exists(month)).isFalse();
+        assertThat(archivedLines(month)).isEqualTo(4);
+        assertThat(counter(userId)).isEqualTo(1);
+    }
+    
+    @Test
+    void detachGivesUpAfterLockTimeoutWhileAWriterHoldsTheTable() throws Exception {
+        YearMonth month = YearMonth.of(2000, 2);
+        long userId = expiredPartition(month, false, false);
+        
+        try (Connection writer = TestDatabase.dataSource().getConnection()) {
+            writer.setAutoCommit(false);
+            // Same locks as markAllReadBefore: ROW EXCLUSIVE on the parent and the partition
+            try (PreparedStatement update = writer.prepareStatement(
+                    "UPDATE notifications SET is_read = true WHERE user_id = ? AND created_at < '2000-03-01'")) {
+                update.setLong(1, userId);
+                update.executeUpdate();
+            }
+            
+            manager.maintain();
+            assertThat(exists(month)).isTrue();
+            
+            writer.commit();
+        }
+        
+        manager.maintain();
+        
+        assertThat(exists(month)).isFalse();
+        assertThat(archivedLines(month)).isEqualTo(3);
+        assertThat(counter(userId)).isZero();
+    }
+}
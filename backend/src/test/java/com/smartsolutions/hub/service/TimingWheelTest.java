@@ -0,0 +1,90 @@
+package com.smartsolutions.hub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+    
+    @Test
+    void firesOnTheFirstTickAfterTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.add(1500, "a");
+        
+        assertThat(wheel.advance(1999)).isEmpty();
+        assertThat(wheel.advance(2000)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    void rejectsDeadlinesBeforeTheCurrentTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 5300);
+        
+        assertThat(wheel.add(4999, "past")).isFalse();
+        assertThat(wheel.add(5000, "current tick")).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(6000)).containsExactly("current tick");
+    }
+    
+    @Test
+    void cascadesFarTimersDownEveryLevel() {
+        // Spans 1, 4, 16, 64: a deadline of 100 starts on level 3
+        TimingWheel<String> wheel = new TimingWheel<>(1, 4, 0);
+        wheel.add(100, "far");
+        wheel.add(3, "near");
+        
+        assertThat(wheel.advance(4)).containsExactly("near");
+        for (long now = 5; now <= 100; now++) {
+            assertThat(wheel.advance(now)).isEmpty();
+        }
+        assertThat(wheel.advance(101)).containsExactly("far");
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    void oneLargeAdvanceFiresInDeadlineOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.add(5_000, "c");
+        wheel.add(15, "a");
+        wheel.add(700, "b");
+        
+        assertThat(wheel.advance(10_000)).containsExactly("a", "b", "c");
+    }
+    
+    @Test
+    void matchesAReferenceSchedule() {
+        long tick = 10;
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(tick, 8, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = 0;
+        int next = 0;
+        
+        for (int step = 0; step < 2_000; step++) {
+            for (int i = random.nextInt(5); i > 0; i--) {
+                long deadline = now - now % tick + random.nextInt(random.nextBoolean() ? 100 : 100_000);
+                assertThat(wheel.add(deadline, next)).isTrue();
+                deadlines.put(next++, deadline);
+            }
+            now += random.nextInt(random.nextInt(10) == 0 ? 5_000 : 50);
+            
+            long current = now / tick;
+            List<Integer> expected = new ArrayList<>();
+            deadlines.forEach((item, deadline) -> {
+                if (deadline / tick < current) {
+                    expected.add(item);
+                }
+            });
+            expected.forEach(deadlines::remove);
+            
+            assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(wheel.size()).isEqualTo(deadlines.size());
+        }
+    }
+}
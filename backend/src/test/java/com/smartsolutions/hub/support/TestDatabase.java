@@ -0,0 +1,56 @@
+package com.smartsolutions.hub.support;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+/**
+ * Postgres container shared by the database tests, migrated once with the application's
+ * Flyway scripts. Started on first use; test classes carry
+ * {@code @Testcontainers(disabledWithoutDocker = true)} so they are skipped without Docker.
+ */
+public final class TestDatabase {
+    
+    private static DataSource dataSource;
+    
+    private TestDatabase() {
+    }
+    
+    public static synchronized DataSource dataSource() {
+        if (dataSource == null) {
+            PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+            dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        }
+        return dataSource;
+    }
+    
+    public static JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource());
+    }
+    
+    public static TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource()));
+    }
+    
+    /**
+     * Insert a user with a unique email, so tests sharing the database do not see each other's rows
+     */
+    public static long createUser(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject(
+            "INSERT INTO users (email, name, role) VALUES (?, 'Test', 'operationnel') RETURNING id",
+            Long.class,
+            "test-" + UUID.randomUUID() + "@smartsolutions.fr");
+    }
+}
@@ -116,6 +116,21 @@ class AuthService {
    * Logout user
    */
   logout(): void {
+    const accessToken = tokenService.getAccessToken();
+    const refreshToken = tokenService.getRefreshToken();
+    if (accessToken || refreshToken) {
+      // Revoke tokens server-side; keepalive lets the request outlive the redirect below
+      fetch(`${apiClient.defaults.baseURL}/auth/logout`, {
+        method: 'POST',
+        keepalive: true,
+        headers: {
+          'Content-Type': 'application/json',
+          ...(accessToken ? { Authorization: `Bearer ${accessToken}` } : {}),
+        },
+        body: JSON.stringify({ refreshToken }),
+      }).catch(() => undefined);
+    }
+
     tokenService.removeTokens();
     // Also clear mock user if it exists
     localStorage.removeItem(this.STORAGE_KEY);
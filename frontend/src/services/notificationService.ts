@@ -1,4 +1,5 @@
 import apiClient from './apiClient';
+import tokenService from './tokenService';
 
 export interface Notification {
   id: number;
@@ -9,6 +10,9 @@ export interface Notification {
   isRead: boolean;
   actionUrl: string | null;
   createdAt: string;
+  /** Number of coalesced repeats (1 = no repeat) */
+  occurrences: number;
+  lastOccurredAt: string | null;
 }
 
 export interface NotificationPage {
@@ -19,6 +23,31 @@ export interface NotificationPage {
   number: number;
 }
 
+export interface NotificationCursorPage {
+  items: Notification[];
+  nextCursor: string | null;
+}
+
+export interface BulkNotificationResult {
+  affected: number;
+  unreadCount: number;
+}
+
+export interface NotificationStreamHandlers {
+  onNotification?: (notification: Notification) => void;
+  /** A repeat was coalesced into this notification (same id, new occurrences) */
+  onNotificationUpdated?: (notification: Notification) => void;
+  /** The notification was deleted on the server (expired): remove it from the list */
+  onNotificationDeleted?: (id: number) => void;
+  onUnreadCount?: (count: number) => void;
+  /** Too much was missed while disconnected: reload the list */
+  onResync?: () => void;
+}
+
+const DEFAULT_RECONNECT_DELAY = 3000;
+/** Notification ids remembered to drop the repeats of a resume */
+const MAX_SEEN_IDS = 1000;
+
 class NotificationService {
   async getNotifications(page: number = 0, size: number = 20): Promise<NotificationPage> {
     const response = await apiClient.get<NotificationPage>('/notifications', {
@@ -27,15 +56,162 @@ class NotificationService {
     return response.data;
   }
 
+  /**
+   * Cursor-based listing: omit the cursor for the first page, then pass nextCursor
+   */
+  async getNotificationsAfter(cursor: string | null = null, size: number = 20): Promise<NotificationCursorPage> {
+    const response = await apiClient.get<NotificationCursorPage>('/notifications', {
+      params: { after: cursor ?? '', size }
+    });
+    return response.data;
+  }
+
   async markAsRead(notificationId: number): Promise<Notification> {
     const response = await apiClient.put<Notification>(`/notifications/${notificationId}/read`);
     return response.data;
   }
 
+  async markManyAsRead(ids: number[]): Promise<BulkNotificationResult> {
+    const response = await apiClient.put<BulkNotificationResult>('/notifications/read', { ids });
+    return response.data;
+  }
+
+  /**
+   * Mark everything created before the given time as read (default: now)
+   */
+  async markAllAsRead(before?: string): Promise<BulkNotificationResult> {
+    const response = await apiClient.put<BulkNotificationResult>('/notifications/read-all', null, {
+      params: before ? { before } : undefined
+    });
+    return response.data;
+  }
+
+  async deleteNotifications(ids: number[]): Promise<BulkNotificationResult> {
+    const response = await apiClient.delete<BulkNotificationResult>('/notifications', {
+      data: { ids }
+    });
+    return response.data;
+  }
+
   async getUnreadCount(): Promise<number> {
     const response = await apiClient.get<number>('/notifications/unread-count');
     return response.data;
   }
+
+  /**
+   * Live notifications over Server-Sent Events (replaces polling)
+   * Uses fetch rather than EventSource so the Authorization header can be sent.
+   * Reconnects with Last-Event-ID after a drop; returns a function that closes the stream.
+   * A resume replays an overlap of notifications already received: they are dropped by id.
+   */
+  subscribe(handlers: NotificationStreamHandlers): () => void {
+    const controller = new AbortController();
+    let lastEventId: string | null = null;
+    let reconnectDelay = DEFAULT_RECONNECT_DELAY;
+    const seenIds = new Set<number>();
+
+    const dispatch = (event: string, data: string) => {
+      if (event === 'notification') {
+        const notification = JSON.parse(data) as Notification;
+        if (seenIds.has(notification.id)) {
+          return;
+        }
+        seenIds.add(notification.id);
+        if (seenIds.size > MAX_SEEN_IDS) {
+          // Sets iterate in insertion order: drop the oldest id
+          seenIds.delete(seenIds.values().next().value as number);
+        }
+        handlers.onNotification?.(notification);
+      } else if (event === 'notification-updated') {
+        handlers.onNotificationUpdated?.(JSON.parse(data) as Notification);
+      } else if (event === 'notification-deleted') {
+        handlers.onNotificationDeleted?.(Number(data));
+      } else if (event === 'unread-count') {
+        handlers.onUnreadCount?.(Number(data));
+      } else if (event === 'resync') {
+        handlers.onResync?.();
+      }
+    };
+
+    const connect = async (): Promise<void> => {
+      const headers: Record<string, string> = { Accept: 'text/event-stream' };
+      const token = tokenService.getAccessToken();
+      if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+      } else {
+        const mockUser = localStorage.getItem('mockUser');
+        if (mockUser) {
+          headers['X-Mock-User'] = mockUser;
+        }
+      }
+      if (lastEventId) {
+        headers['Last-Event-ID'] = lastEventId;
+      }
+
+      const response = await fetch(`${apiClient.defaults.baseURL}/notifications/stream`, {
+        headers,
+        signal: controller.signal,
+      });
+      if (response.status === 401) {
+        // Any API call goes through the refresh interceptor
+        await this.getUnreadCount();
+        return;
+      }
+      if (!response.ok || !response.body) {
+        throw new Error(`Notification stream failed: ${response.status}`);
+      }
+
+      const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+      let buffer = '';
+      for (;;) {
+        const { value, done } = await reader.read();
+        if (done) {
+          return;
+        }
+        buffer += value;
+        let boundary = buffer.indexOf('\n\n');
+        while (boundary >= 0) {
+          const block = buffer.slice(0, boundary);
+          buffer = buffer.slice(boundary + 2);
+          boundary = buffer.indexOf('\n\n');
+
+          let event = 'message';
+          const data: string[] = [];
+          for (const line of block.split('\n')) {
+            if (line.startsWith('event:')) {
+              event = line.slice(6).trim();
+            } else if (line.startsWith('data:')) {
+              data.push(line.slice(5).replace(/^ /, ''));
+            } else if (line.startsWith('id:')) {
+              lastEventId = line.slice(3).trim();
+            } else if (line.startsWith('retry:')) {
+              reconnectDelay = Number(line.slice(6)) || DEFAULT_RECONNECT_DELAY;
+            }
+          }
+          if (data.length > 0) {
+            dispatch(event, data.join('\n'));
+          }
+        }
+      }
+    };
+
+    const run = async () => {
+      while (!controller.signal.aborted) {
+        try {
+          await connect();
+        } catch (error) {
+          if (controller.signal.aborted) {
+            return;
+          }
+          console.error('Notification stream error:', error);
+        }
+        await new Promise((resolve) => setTimeout(resolve, reconnectDelay));
+      }
+    };
+    run();
+
+    return () => controller.abort();
+  }
 }
 
 export default new NotificationService();